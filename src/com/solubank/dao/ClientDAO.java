@@ -1,6 +1,7 @@
 package dao;
 
 import entity.Client;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,6 +9,9 @@ public interface ClientDAO {
     Client save(Client client);
     Optional<Client> findById(long id);
     List<Client> findAll();
+    // Recherche groupée : une seule requête pour une collection d'ID
+    List<Client> findAllByIds(Collection<Long> ids);
     void update(Client client);
-    void delete(long id);
+    // true si le client existait et a été supprimé (avec ses comptes, en cascade)
+    boolean delete(long id);
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import util.DatabaseConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,9 +16,13 @@ public class ClientDAOImpl implements ClientDAO {
     private static final String INSERT_CLIENT = "INSERT INTO Client (nom, email) VALUES (?, ?) RETURNING id";
     private static final String SELECT_CLIENT_BY_ID = "SELECT id, nom, email FROM Client WHERE id = ?";
     private static final String SELECT_ALL_CLIENTS = "SELECT id, nom, email FROM Client";
+    private static final String SELECT_CLIENTS_BY_IDS = "SELECT id, nom, email FROM Client WHERE id = ANY(?)";
     private static final String UPDATE_CLIENT = "UPDATE Client SET nom = ?, email = ? WHERE id = ?";
     private static final String DELETE_CLIENT = "DELETE FROM Client WHERE id = ?";
 
+    // Résultat de findAll partagé par toutes les instances, relu après chaque écriture (Client est immuable)
+    private static final ResultatsVersionnes<Client> TOUS_LES_CLIENTS = new ResultatsVersionnes<>(null);
+
     // --- Méthode d'aide pour le mapping ---
     private Client mapRowToClient(ResultSet rs) throws SQLException {
         return new Client(
@@ -36,6 +41,7 @@ public class ClientDAOImpl implements ClientDAO {
             ps.setString(2, client.email());
 
             ResultSet rs = ps.executeQuery();
+            ResultatsVersionnes.signalerEcriture();
             if (rs.next()) {
                 long generatedId = rs.getLong(1);
                 // Retourne un nouvel objet Client avec l'ID généré
@@ -69,10 +75,14 @@ public class ClientDAOImpl implements ClientDAO {
 
     @Override
     public List<Client> findAll() {
+        return TOUS_LES_CLIENTS.obtenir(this::lireTousLesClients);
+    }
+
+    private List<Client> lireTousLesClients() {
         List<Client> clients = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement statement = conn.createStatement();
-             ResultSet rs = statement.executeQuery(SELECT_ALL_CLIENTS)) {
+             PreparedStatement ps = conn.prepareStatement(SELECT_ALL_CLIENTS);
+             ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
                 clients.add(mapRowToClient(rs));
@@ -84,6 +94,33 @@ public class ClientDAOImpl implements ClientDAO {
         return clients;
     }
 
+    @Override
+    public List<Client> findAllByIds(Collection<Long> ids) {
+        List<Client> clients = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return clients;
+        }
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(SELECT_CLIENTS_BY_IDS)) {
+
+            // Tableau PostgreSQL bigint[] : une seule requête quel que soit le nombre d'ID
+            Array tableauIds = conn.createArrayOf("bigint", ids.toArray());
+            ps.setArray(1, tableauIds);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    clients.add(mapRowToClient(rs));
+                }
+            } finally {
+                tableauIds.free();
+            }
+
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de la recherche groupée de clients: " + e.getMessage());
+        }
+        return clients;
+    }
+
     @Override
     public void update(Client client) {
         try (Connection conn = DatabaseConnection.getConnection();
@@ -94,6 +131,7 @@ public class ClientDAOImpl implements ClientDAO {
             ps.setLong(3, client.id());
 
             int rowsAffected = ps.executeUpdate();
+            ResultatsVersionnes.signalerEcriture();
             if (rowsAffected == 0) {
                 System.out.println("Avertissement: Aucun client mis à jour pour l'ID " + client.id());
             }
@@ -104,15 +142,18 @@ public class ClientDAOImpl implements ClientDAO {
     }
 
     @Override
-    public void delete(long id) {
+    public boolean delete(long id) {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(DELETE_CLIENT)) {
 
             ps.setLong(1, id);
-            ps.executeUpdate();
+            int supprimes = ps.executeUpdate();
+            ResultatsVersionnes.signalerEcriture();
+            return supprimes > 0;
 
         } catch (SQLException e) {
             System.err.println("Erreur DAO lors de la suppression du client (ID " + id + "): " + e.getMessage());
         }
+        return false;
     }
 }
\ No newline at end of file
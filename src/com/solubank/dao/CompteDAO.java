@@ -2,7 +2,13 @@
 package dao;
 
 import entity.Compte;
+import entity.Transaction;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CompteDAO {
@@ -11,6 +17,14 @@ public interface CompteDAO {
     Optional<Compte> findByNumero(String numero);
     List<Compte> findAll();
     List<Compte> findByClientId(long clientId);
+    // Comptes sans transaction, ou dont la dernière transaction est antérieure au seuil (une seule requête)
+    List<Compte> findInactifsDepuis(LocalDate seuil);
     void update(Compte compte);
-    void delete(long id);
+    // Découvert autorisé / taux d'intérêt seulement (le solde est tenu par le moteur en mémoire)
+    void updateLimites(Compte compte);
+    // Report d'un point de contrôle du moteur : soldes (par ID de compte) et écritures (avec leur ID réservé)
+    // validés dans une même transaction ; en cas d'erreur, tout est annulé et l'exception remontée
+    void updateSoldes(Map<Long, Double> soldes, Collection<Transaction> ecritures) throws SQLException;
+    // false si aucun compte n'a été supprimé (ID inconnu ou erreur)
+    boolean delete(long id);
 }
\ No newline at end of file
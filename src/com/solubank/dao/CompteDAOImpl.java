@@ -5,8 +5,11 @@ import entity.*;
 import util.DatabaseConnection;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class CompteDAOImpl implements CompteDAO {
@@ -23,10 +26,33 @@ public class CompteDAOImpl implements CompteDAO {
             "SELECT * FROM Compte";
     private static final String SELECT_COMPTE_BY_CLIENT =
             "SELECT * FROM Compte WHERE idClient = ?";
+    private static final String SELECT_COMPTES_INACTIFS =
+            "SELECT c.* FROM Compte c " +
+                    "LEFT JOIN (SELECT idCompte, MAX(dateTrans) AS derniereDate FROM Transaction GROUP BY idCompte) t " +
+                    "ON t.idCompte = c.id " +
+                    "WHERE t.derniereDate IS NULL OR t.derniereDate < ?";
     private static final String UPDATE_COMPTE =
             "UPDATE Compte SET solde = ?, decouvertAutorise = ?, tauxInteret = ? WHERE id = ?";
+    private static final String UPDATE_LIMITES =
+            "UPDATE Compte SET decouvertAutorise = ?, tauxInteret = ? WHERE id = ?";
+    private static final String UPDATE_SOLDE =
+            "UPDATE Compte SET solde = ? WHERE id = ?";
     private static final String DELETE_COMPTE =
             "DELETE FROM Compte WHERE id = ?";
+    // Écritures du moteur en mémoire : ID déjà réservé dans la séquence, ignorées si déjà reportées
+    private static final String INSERT_TRANSACTION_AVEC_ID =
+            "INSERT INTO Transaction (id, dateTrans, montant, type, lieu, idCompte) " +
+                    "VALUES (?, ?, ?, ?::TransactionType, ?, ?) ON CONFLICT (id) DO NOTHING";
+
+    // Résultat de findAll partagé par toutes les instances, relu après chaque écriture ;
+    // chaque appelant reçoit ses propres copies (les comptes sont modifiables)
+    private static final ResultatsVersionnes<Compte> TOUS_LES_COMPTES = new ResultatsVersionnes<>(CompteDAOImpl::copier);
+
+    // Affectation des paramètres d'une requête préparée
+    @FunctionalInterface
+    private interface ParametresRequete {
+        void appliquer(PreparedStatement ps) throws SQLException;
+    }
 
     // --- Méthode d'aide pour le mapping (Cruciale pour la hiérarchie sealed) ---
     private Compte mapRowToCompte(ResultSet rs) throws SQLException {
@@ -73,6 +99,7 @@ public class CompteDAOImpl implements CompteDAO {
             if (taux != null) ps.setDouble(6, taux); else ps.setNull(6, Types.DECIMAL);
 
             ResultSet rs = ps.executeQuery();
+            ResultatsVersionnes.signalerEcriture();
             if (rs.next()) {
                 long generatedId = rs.getLong(1);
                 // On met à jour l'ID du compte pour le retourner (même si Compte n'est pas un record, c'est utile)
@@ -126,23 +153,34 @@ public class CompteDAOImpl implements CompteDAO {
 
     @Override
     public List<Compte> findAll() {
-        return findListByQuery(SELECT_ALL_COMPTES, null);
+        return TOUS_LES_COMPTES.obtenir(() -> findListByQuery(SELECT_ALL_COMPTES, ps -> { }));
+    }
+
+    private static Compte copier(Compte compte) {
+        if (compte instanceof CompteCourant cc) {
+            return new CompteCourant(cc.getId(), cc.getNumero(), cc.getSolde(), cc.getIdClient(), cc.getDecouvertAutorise());
+        }
+        CompteEpargne ce = (CompteEpargne) compte;
+        return new CompteEpargne(ce.getId(), ce.getNumero(), ce.getSolde(), ce.getIdClient(), ce.getTauxInteret());
     }
 
     @Override
     public List<Compte> findByClientId(long clientId) {
-        return findListByQuery(SELECT_COMPTE_BY_CLIENT, clientId);
+        return findListByQuery(SELECT_COMPTE_BY_CLIENT, ps -> ps.setLong(1, clientId));
+    }
+
+    @Override
+    public List<Compte> findInactifsDepuis(LocalDate seuil) {
+        return findListByQuery(SELECT_COMPTES_INACTIFS, ps -> ps.setDate(1, Date.valueOf(seuil)));
     }
 
     // Méthode générique interne pour réutiliser le code de recherche de listes
-    private List<Compte> findListByQuery(String sql, Long parameter) {
+    private List<Compte> findListByQuery(String sql, ParametresRequete parametres) {
         List<Compte> comptes = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            if (parameter != null) {
-                ps.setLong(1, parameter);
-            }
+            parametres.appliquer(ps);
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -161,21 +199,12 @@ public class CompteDAOImpl implements CompteDAO {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(UPDATE_COMPTE)) {
 
-            Double decouvert = null;
-            Double taux = null;
-
-            if (compte instanceof CompteCourant cc) {
-                decouvert = cc.getDecouvertAutorise();
-            } else if (compte instanceof CompteEpargne ce) {
-                taux = ce.getTauxInteret();
-            }
-
             ps.setDouble(1, compte.getSolde());
-            if (decouvert != null) ps.setDouble(2, decouvert); else ps.setNull(2, Types.DECIMAL);
-            if (taux != null) ps.setDouble(3, taux); else ps.setNull(3, Types.DECIMAL);
+            affecterLimites(ps, 2, compte);
             ps.setLong(4, compte.getId());
 
             ps.executeUpdate();
+            ResultatsVersionnes.signalerEcriture();
 
         } catch (SQLException e) {
             System.err.println("Erreur DAO lors de la mise à jour du compte: " + e.getMessage());
@@ -183,15 +212,84 @@ public class CompteDAOImpl implements CompteDAO {
     }
 
     @Override
-    public void delete(long id) {
+    public void updateLimites(Compte compte) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(UPDATE_LIMITES)) {
+
+            affecterLimites(ps, 1, compte);
+            ps.setLong(3, compte.getId());
+
+            ps.executeUpdate();
+            ResultatsVersionnes.signalerEcriture();
+
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de la mise à jour des limites du compte: " + e.getMessage());
+        }
+    }
+
+    // Découvert (compte courant) puis taux (compte épargne) aux positions indice et indice + 1, l'autre à NULL
+    private static void affecterLimites(PreparedStatement ps, int indice, Compte compte) throws SQLException {
+        Double decouvert = null;
+        Double taux = null;
+
+        if (compte instanceof CompteCourant cc) {
+            decouvert = cc.getDecouvertAutorise();
+        } else if (compte instanceof CompteEpargne ce) {
+            taux = ce.getTauxInteret();
+        }
+
+        if (decouvert != null) ps.setDouble(indice, decouvert); else ps.setNull(indice, Types.DECIMAL);
+        if (taux != null) ps.setDouble(indice + 1, taux); else ps.setNull(indice + 1, Types.DECIMAL);
+    }
+
+    @Override
+    public void updateSoldes(Map<Long, Double> soldes, Collection<Transaction> ecritures) throws SQLException {
+        if (soldes.isEmpty() && ecritures.isEmpty()) {
+            return;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Une seule validation pour tout le lot : écritures et soldes sont reportés ensemble ou pas du tout
+            conn.setAutoCommit(false);
+            try (PreparedStatement insertion = conn.prepareStatement(INSERT_TRANSACTION_AVEC_ID);
+                 PreparedStatement miseAJour = conn.prepareStatement(UPDATE_SOLDE)) {
+                for (Transaction ecriture : ecritures) {
+                    insertion.setLong(1, ecriture.id());
+                    insertion.setDate(2, Date.valueOf(ecriture.date()));
+                    insertion.setDouble(3, ecriture.montant());
+                    insertion.setString(4, ecriture.type().name());
+                    insertion.setString(5, ecriture.lieu());
+                    insertion.setLong(6, ecriture.idCompte());
+                    insertion.addBatch();
+                }
+                insertion.executeBatch();
+                for (Map.Entry<Long, Double> solde : soldes.entrySet()) {
+                    miseAJour.setDouble(1, solde.getValue());
+                    miseAJour.setLong(2, solde.getKey());
+                    miseAJour.addBatch();
+                }
+                miseAJour.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        ResultatsVersionnes.signalerEcriture();
+    }
+
+    @Override
+    public boolean delete(long id) {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(DELETE_COMPTE)) {
 
             ps.setLong(1, id);
-            ps.executeUpdate();
+            int supprimes = ps.executeUpdate();
+            ResultatsVersionnes.signalerEcriture();
+            return supprimes > 0;
 
         } catch (SQLException e) {
             System.err.println("Erreur DAO lors de la suppression du compte: " + e.getMessage());
         }
+        return false;
     }
 }
\ No newline at end of file
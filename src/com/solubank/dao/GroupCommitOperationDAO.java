@@ -0,0 +1,404 @@
+package dao;
+
+import entity.ResultatOperation;
+import entity.StatutOperation;
+import entity.Transaction;
+import entity.TypeTransaction;
+import util.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation groupée (group commit) des opérations bancaires : les appelants déposent leur opération
+ * dans une file, un unique thread de validation regroupe tout ce qui arrive dans une courte fenêtre
+ * (durée ou nombre d'opérations) et l'applique en une seule transaction JDBC, donc un seul fsync
+ * PostgreSQL pour tout le lot. Chaque appelant est libéré au commit de son lot : une opération
+ * réussie est durable, comme avec OperationDAOImpl.
+ * <p>
+ * Dans un lot, les opérations sont appliquées dans l'ordre d'arrivée : les mouvements (débits
+ * conditionnels aux plafonds, crédits) consécutifs sont envoyés en un lot JDBC, chaque virement est une
+ * seule instruction qui débite la source et crédite la destination, ou ne modifie rien. Le nombre de
+ * lignes modifiées dit, opération par opération, si elle est acceptée.
+ * Seules les opérations acceptées sont écrites au journal des transactions. Les soldes retournés
+ * sont ceux de la fin du lot.
+ * Si le lot échoue avant son commit (erreur SQL), ses opérations sont rejouées une par une par OperationDAOImpl.
+ */
+public class GroupCommitOperationDAO implements OperationDAO, AutoCloseable {
+
+    // Delta signé : un crédit (delta positif) passe toujours, un débit reprend les règles de
+    // CompteCourant.debiter (découvert autorisé) et de CompteEpargne.debiter (solde jamais négatif)
+    private static final String APPLIQUER_DELTA =
+            "UPDATE Compte SET solde = solde + ? " +
+                    "WHERE id = ? AND (? >= 0 OR solde + ? >= CASE WHEN LOWER(typeCompte) = 'courant' " +
+                    "THEN -COALESCE(decouvertAutorise, 0) ELSE 0 END)";
+    // Virement en une instruction : les deux lignes sont verrouillées dans l'ordre croissant des ID
+    // (comme OperationDAOImpl), puis débit de la source et crédit de la destination si le débit respecte
+    // les plafonds et si la destination existe ; sinon aucune ligne modifiée.
+    private static final String APPLIQUER_VIREMENT =
+            "WITH verrous AS (SELECT id, solde, typeCompte, decouvertAutorise FROM Compte " +
+                    "WHERE id IN (?, ?) ORDER BY id FOR UPDATE) " +
+                    "UPDATE Compte c SET solde = c.solde + CASE WHEN c.id = d.id THEN ? ELSE 0 END " +
+                    "- CASE WHEN c.id = s.id THEN ? ELSE 0 END " +
+                    "FROM verrous s, verrous d " +
+                    "WHERE s.id = ? AND d.id = ? AND c.id IN (s.id, d.id) " +
+                    "AND s.solde - ? >= CASE WHEN LOWER(s.typeCompte) = 'courant' " +
+                    "THEN -COALESCE(s.decouvertAutorise, 0) ELSE 0 END";
+    private static final String SELECT_SOLDES =
+            "SELECT id, solde FROM Compte WHERE id = ANY(?)";
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO Transaction (dateTrans, montant, type, lieu, idCompte) " +
+                    "VALUES (?, ?, ?::TransactionType, ?, ?)";
+
+    private enum Nature { RETRAIT, VERSEMENT, VIREMENT }
+
+    private static final class Demande {
+        private final Nature nature;
+        private final long idCompte;      // compte débité (retrait, virement) ou crédité (versement)
+        private final long idCompteDest;  // virement uniquement
+        private final double montant;
+        private final String lieu;
+        private final LocalDate date;
+        private final CompletableFuture<ResultatOperation> resultat = new CompletableFuture<>();
+
+        // État pendant la validation du lot
+        private boolean acceptee;
+        private List<Transaction> enregistrees = List.of();
+
+        private Demande(Nature nature, long idCompte, long idCompteDest, double montant, String lieu, LocalDate date) {
+            this.nature = nature;
+            this.idCompte = idCompte;
+            this.idCompteDest = idCompteDest;
+            this.montant = montant;
+            this.lieu = lieu;
+            this.date = date;
+        }
+
+        // Mêmes écritures que OperationDAOImpl
+        private List<Transaction> ecritures() {
+            return switch (nature) {
+                case RETRAIT -> List.of(new Transaction(0, date, montant, TypeTransaction.RETRAIT, lieu, idCompte));
+                case VERSEMENT -> List.of(new Transaction(0, date, montant, TypeTransaction.VERSEMENT, lieu, idCompte));
+                case VIREMENT -> List.of(
+                        new Transaction(0, date, montant, TypeTransaction.RETRAIT,
+                                "Virement sortant vers Compte ID " + idCompteDest, idCompte),
+                        new Transaction(0, date, montant, TypeTransaction.VERSEMENT,
+                                "Virement entrant de Compte ID " + idCompte, idCompteDest));
+            };
+        }
+    }
+
+    // Marque de fin de file (close)
+    private static final Demande FIN = new Demande(Nature.VERSEMENT, 0, 0, 0, null, null);
+
+    private final BlockingQueue<Demande> file = new LinkedBlockingQueue<>();
+    private final OperationDAOImpl direct = new OperationDAOImpl();
+    private final int tailleMaxLot;
+    private final long fenetreNanos;
+    private final Thread validateur;
+    private boolean ferme; // sous le moniteur de this
+
+    /**
+     * @param tailleMaxLot   nombre maximal d'opérations par transaction
+     * @param fenetreMicros  attente maximale d'autres opérations après la première d'un lot (0 : seulement celles déjà en file)
+     */
+    public GroupCommitOperationDAO(int tailleMaxLot, long fenetreMicros) {
+        this.tailleMaxLot = Math.max(1, tailleMaxLot);
+        this.fenetreNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, fenetreMicros));
+        this.validateur = new Thread(this::boucle, "validation-groupee");
+        validateur.setDaemon(true);
+        validateur.start();
+    }
+
+    @Override
+    public ResultatOperation retrait(long idCompte, double montant, String lieu, LocalDate date) {
+        return soumettre(new Demande(Nature.RETRAIT, idCompte, 0, montant, lieu, date));
+    }
+
+    @Override
+    public ResultatOperation versement(long idCompte, double montant, String lieu, LocalDate date) {
+        return soumettre(new Demande(Nature.VERSEMENT, idCompte, 0, montant, lieu, date));
+    }
+
+    @Override
+    public ResultatOperation virement(long idCompteSource, long idCompteDest, double montant, LocalDate date) {
+        return soumettre(new Demande(Nature.VIREMENT, idCompteSource, idCompteDest, montant, null, date));
+    }
+
+    // Bloque l'appelant jusqu'au commit (ou à l'échec) du lot qui contient son opération
+    private ResultatOperation soumettre(Demande demande) {
+        boolean enFile;
+        synchronized (this) {
+            enFile = !ferme;
+            if (enFile) {
+                file.add(demande);
+            }
+        }
+        return enFile ? demande.resultat.join() : executerSeule(demande);
+    }
+
+    /**
+     * Valide les opérations déjà en file puis arrête le thread de validation.
+     * Les opérations soumises ensuite sont exécutées directement, une par une.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (ferme) {
+                return;
+            }
+            ferme = true;
+            file.add(FIN);
+        }
+        try {
+            validateur.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void boucle() {
+        try {
+            attendreEtValider();
+        } finally {
+            // Arrêt (y compris sur interruption ou erreur inattendue) : plus rien n'entre en file,
+            // ce qui reste est exécuté directement
+            synchronized (this) {
+                ferme = true;
+            }
+            for (Demande reste = file.poll(); reste != null; reste = file.poll()) {
+                if (reste != FIN) {
+                    terminerSeule(reste);
+                }
+            }
+        }
+    }
+
+    private void attendreEtValider() {
+        List<Demande> lot = new ArrayList<>(tailleMaxLot);
+        boolean fin = false;
+        while (!fin) {
+            try {
+                Demande premiere = file.take();
+                if (premiere == FIN) {
+                    break;
+                }
+                lot.add(premiere);
+                long limite = System.nanoTime() + fenetreNanos;
+                while (lot.size() < tailleMaxLot) {
+                    // D'abord les opérations déjà en file, puis attente jusqu'à la fin de la fenêtre
+                    Demande suivante = file.poll();
+                    if (suivante == null) {
+                        long reste = limite - System.nanoTime();
+                        suivante = reste > 0 ? file.poll(reste, TimeUnit.NANOSECONDS) : null;
+                        if (suivante == null) {
+                            break;
+                        }
+                    }
+                    if (suivante == FIN) {
+                        fin = true;
+                        break;
+                    }
+                    lot.add(suivante);
+                }
+            } catch (InterruptedException e) {
+                fin = true;
+            }
+            if (!lot.isEmpty()) {
+                try {
+                    valider(lot);
+                } catch (Throwable e) {
+                    // Le thread de validation doit survivre : sinon les appelants en attente ne seraient jamais libérés
+                    System.err.println("Erreur inattendue lors de la validation groupée: " + e);
+                    lot.forEach(demande -> demande.resultat.complete(ResultatOperation.echec(StatutOperation.ERREUR)));
+                } finally {
+                    lot.clear();
+                }
+            }
+        }
+    }
+
+    private void valider(List<Demande> lot) {
+        Map<Long, Double> soldes;
+        boolean commitEnCours = false;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                soldes = appliquerLot(conn, lot);
+                commitEnCours = true;
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (commitEnCours) {
+                // Issue du commit inconnue : rejouer risquerait d'appliquer deux fois (même règle que OperationDAOImpl)
+                System.err.println("Erreur DAO lors de la validation groupée: " + e.getMessage());
+                lot.forEach(demande -> demande.resultat.complete(ResultatOperation.echec(StatutOperation.ERREUR)));
+            } else {
+                // Rien n'est validé : chaque opération est rejouée seule, une opération fautive n'entraîne plus les autres
+                System.err.println("Validation groupée impossible (" + lot.size() + " opérations), exécution une par une : "
+                        + e.getMessage());
+                lot.forEach(this::terminerSeule);
+            }
+            return;
+        }
+        ResultatsVersionnes.signalerEcriture();
+        lot.forEach(demande -> demande.resultat.complete(resultat(demande, soldes)));
+    }
+
+    // Applique le lot dans la transaction courante ; retourne les soldes de fin de lot des comptes concernés
+    private Map<Long, Double> appliquerLot(Connection conn, List<Demande> lot) throws SQLException {
+        // 1. Opérations dans l'ordre d'arrivée : mouvements consécutifs en un lot JDBC, virements un par un
+        try (PreparedStatement mouvements = conn.prepareStatement(APPLIQUER_DELTA);
+             PreparedStatement virement = conn.prepareStatement(APPLIQUER_VIREMENT)) {
+            List<Demande> enAttente = new ArrayList<>();
+            for (Demande demande : lot) {
+                if (demande.nature != Nature.VIREMENT) {
+                    ajouterDelta(mouvements, demande.idCompte,
+                            demande.nature == Nature.VERSEMENT ? demande.montant : -demande.montant);
+                    enAttente.add(demande);
+                    continue;
+                }
+                appliquerMouvements(mouvements, enAttente);
+                virement.setLong(1, demande.idCompte);
+                virement.setLong(2, demande.idCompteDest);
+                virement.setDouble(3, demande.montant);
+                virement.setDouble(4, demande.montant);
+                virement.setLong(5, demande.idCompte);
+                virement.setLong(6, demande.idCompteDest);
+                virement.setDouble(7, demande.montant);
+                demande.acceptee = virement.executeUpdate() != 0; // 0 : compte absent ou plafond atteint
+            }
+            appliquerMouvements(mouvements, enAttente);
+        }
+
+        // 2. Soldes de fin de lot (et existence des comptes des opérations refusées) en une requête
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Demande demande : lot) {
+            ids.add(demande.idCompte);
+            if (demande.nature == Nature.VIREMENT) {
+                ids.add(demande.idCompteDest);
+            }
+        }
+        Map<Long, Double> soldes = new HashMap<>(ids.size() * 2);
+        try (PreparedStatement ps = conn.prepareStatement(SELECT_SOLDES)) {
+            ps.setArray(1, conn.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    soldes.put(rs.getLong("id"), rs.getDouble("solde"));
+                }
+            }
+        }
+
+        // 3. Écritures des seules opérations acceptées, en un lot d'INSERT (ID générés dans l'ordre du lot)
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_TRANSACTION, new String[]{"id"})) {
+            boolean aInserer = false;
+            for (Demande demande : lot) {
+                if (!demande.acceptee) {
+                    continue;
+                }
+                for (Transaction ecriture : demande.ecritures()) {
+                    ps.setDate(1, Date.valueOf(ecriture.date()));
+                    ps.setDouble(2, ecriture.montant());
+                    ps.setString(3, ecriture.type().name());
+                    ps.setString(4, ecriture.lieu());
+                    ps.setLong(5, ecriture.idCompte());
+                    ps.addBatch();
+                    aInserer = true;
+                }
+            }
+            if (aInserer) {
+                ps.executeBatch();
+                try (ResultSet cles = ps.getGeneratedKeys()) {
+                    attribuerIds(lot, cles);
+                }
+            }
+        }
+        return soldes;
+    }
+
+    // Exécute le lot de mouvements en attente ; 0 ligne modifiée : compte absent ou plafond atteint
+    private static void appliquerMouvements(PreparedStatement ps, List<Demande> enAttente) throws SQLException {
+        if (enAttente.isEmpty()) {
+            return;
+        }
+        int[] lignes = ps.executeBatch();
+        for (int i = 0; i < enAttente.size(); i++) {
+            enAttente.get(i).acceptee = lignes[i] != 0;
+        }
+        enAttente.clear();
+    }
+
+    private static void ajouterDelta(PreparedStatement ps, long idCompte, double delta) throws SQLException {
+        ps.setDouble(1, delta);
+        ps.setLong(2, idCompte);
+        ps.setDouble(3, delta);
+        ps.setDouble(4, delta);
+        ps.addBatch();
+    }
+
+    // Les ID générés arrivent dans l'ordre des INSERT
+    private static void attribuerIds(List<Demande> lot, ResultSet cles) throws SQLException {
+        for (Demande demande : lot) {
+            if (!demande.acceptee) {
+                continue;
+            }
+            List<Transaction> enregistrees = new ArrayList<>(2);
+            for (Transaction ecriture : demande.ecritures()) {
+                if (!cles.next()) {
+                    throw new SQLException("Clés générées manquantes pour le lot d'écritures");
+                }
+                enregistrees.add(new Transaction(cles.getLong(1), ecriture.date(), ecriture.montant(),
+                        ecriture.type(), ecriture.lieu(), ecriture.idCompte()));
+            }
+            demande.enregistrees = enregistrees;
+        }
+    }
+
+    private static ResultatOperation resultat(Demande demande, Map<Long, Double> soldes) {
+        if (demande.acceptee) {
+            Map<Long, Double> nouveauxSoldes = new LinkedHashMap<>();
+            nouveauxSoldes.put(demande.idCompte, soldes.get(demande.idCompte));
+            if (demande.nature == Nature.VIREMENT) {
+                nouveauxSoldes.put(demande.idCompteDest, soldes.get(demande.idCompteDest));
+            }
+            return new ResultatOperation(StatutOperation.SUCCES, demande.enregistrees, nouveauxSoldes);
+        }
+        boolean compteAbsent = !soldes.containsKey(demande.idCompte)
+                || (demande.nature == Nature.VIREMENT && !soldes.containsKey(demande.idCompteDest));
+        return ResultatOperation.echec(compteAbsent || demande.nature == Nature.VERSEMENT
+                ? StatutOperation.COMPTE_INTROUVABLE
+                : StatutOperation.SOLDE_INSUFFISANT);
+    }
+
+    // Exécution directe dont l'appelant en attente est toujours libéré, même sur une erreur inattendue
+    private void terminerSeule(Demande demande) {
+        try {
+            demande.resultat.complete(executerSeule(demande));
+        } catch (Throwable e) {
+            System.err.println("Erreur inattendue lors de l'opération bancaire: " + e);
+            demande.resultat.complete(ResultatOperation.echec(StatutOperation.ERREUR));
+        }
+    }
+
+    private ResultatOperation executerSeule(Demande demande) {
+        return switch (demande.nature) {
+            case RETRAIT -> direct.retrait(demande.idCompte, demande.montant, demande.lieu, demande.date);
+            case VERSEMENT -> direct.versement(demande.idCompte, demande.montant, demande.lieu, demande.date);
+            case VIREMENT -> direct.virement(demande.idCompte, demande.idCompteDest, demande.montant, demande.date);
+        };
+    }
+}
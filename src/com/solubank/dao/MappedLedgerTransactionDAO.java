@@ -0,0 +1,764 @@
+package dao;
+
+import entity.StatistiquesTransaction;
+import entity.Transaction;
+import entity.TypeTransaction;
+import util.LongLongHashMap;
+import util.Montant;
+import util.TopK;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Journal local des transactions en ajout seul, dans des fichiers segments projetés en mémoire (mmap).
+ * Chaque transaction est un enregistrement binaire de taille fixe ; un segment plein est complété par
+ * un nouveau fichier. Un index ID → position et un chaînage par compte (chaque enregistrement pointe
+ * vers le précédent du même compte) évitent de parcourir tout le journal.
+ * Les filtres et agrégations lisent directement les champs dans les pages projetées : seules les lignes
+ * retenues sont reconverties en Transaction.
+ */
+public class MappedLedgerTransactionDAO implements TransactionDAO, AutoCloseable {
+
+    /**
+     * Moment où les pages modifiées sont forcées sur disque (fsync).
+     */
+    public enum PolitiqueSynchro {
+        TOUJOURS,   // à chaque écriture (durable, le plus lent)
+        PERIODIQUE, // par une tâche de fond, toutes les N millisecondes
+        JAMAIS      // laissé au système (à la fermeture et au changement de segment seulement)
+    }
+
+    // --- Format d'un enregistrement (128 octets) ---
+    private static final int TAILLE_LIGNE = 128;
+    private static final int OFF_ID = 0;            // long
+    private static final int OFF_JOUR = 8;          // int : LocalDate.toEpochDay()
+    private static final int OFF_MONTANT = 12;      // long : montant en centimes
+    private static final int OFF_TYPE = 20;         // byte : TypeTransaction.ordinal()
+    private static final int OFF_ETAT = 21;         // byte : écrit en dernier (ligne visible seulement si complète)
+    private static final int OFF_COMPTE = 22;       // long
+    private static final int OFF_PRECEDENT = 30;    // long : position précédente du même compte (-1 : aucune)
+    private static final int OFF_LONGUEUR_LIEU = 38; // short : -1 si lieu absent
+    private static final int OFF_LIEU = 40;         // octets UTF-8
+    private static final int LIEU_MAX_OCTETS = TAILLE_LIGNE - OFF_LIEU;
+
+    private static final byte ETAT_LIBRE = 0;
+    private static final byte ETAT_ACTIVE = 1;
+    private static final byte ETAT_SUPPRIMEE = 2;
+
+    private static final int JOUR_ABSENT = Integer.MIN_VALUE;
+    private static final long AUCUNE = -1L;
+
+    private static final TypeTransaction[] TYPES = TypeTransaction.values();
+
+    // Tri des listes identique aux requêtes SQL (dateTrans DESC, puis id DESC)
+    private static final Comparator<Transaction> PLUS_RECENTES_D_ABORD =
+            Comparator.comparing(Transaction::date, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(Comparator.comparingLong(Transaction::id).reversed());
+
+    private final Path repertoire;
+    private final int lignesParSegment;
+    private final PolitiqueSynchro politique;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Remplacé (copie agrandie) à chaque nouveau segment : streamAll le lit sans verrou
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final LongLongHashMap positionParId = new LongLongHashMap();
+    private final LongLongHashMap dernierePositionParCompte = new LongLongHashMap();
+    private long nombreLignes;
+    private long prochainId = 1;
+
+    // Premier segment contenant des pages pas encore forcées sur disque
+    private int premierSegmentNonSynchronise;
+    private volatile boolean modifie;
+    private final ScheduledExecutorService synchroniseur;
+    private boolean ferme;
+
+    public MappedLedgerTransactionDAO(Path repertoire, int lignesParSegment,
+                                      PolitiqueSynchro politique, long intervalleSynchroMillis) {
+        if (lignesParSegment <= 0) {
+            throw new IllegalArgumentException("Le nombre de lignes par segment doit être positif.");
+        }
+        this.repertoire = repertoire;
+        this.politique = politique;
+        try {
+            Files.createDirectories(repertoire);
+            List<Path> existants = segmentsExistants();
+            // Un journal existant impose sa taille de segment
+            this.lignesParSegment = existants.isEmpty()
+                    ? lignesParSegment
+                    : (int) (Files.size(existants.get(0)) / TAILLE_LIGNE);
+            for (Path fichier : existants) {
+                ajouterSegment(projeter(fichier));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ouverture du journal impossible : " + repertoire, e);
+        }
+        reconstruireIndex();
+
+        if (politique == PolitiqueSynchro.PERIODIQUE) {
+            this.synchroniseur = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "journal-synchro");
+                t.setDaemon(true);
+                return t;
+            });
+            long periode = Math.max(1, intervalleSynchroMillis);
+            synchroniseur.scheduleWithFixedDelay(this::synchroniser, periode, periode, TimeUnit.MILLISECONDS);
+        } else {
+            this.synchroniseur = null;
+        }
+    }
+
+    /**
+     * Copie dans le journal les transactions de la base postérieures à sa dernière transaction (ID croissants),
+     * en conservant leurs ID : tout l'historique au premier démarrage, ensuite les transactions validées
+     * en base pendant que le journal n'était pas ouvert (autre instance, arrêt avant l'écouteur...).
+     * Retourne le nombre de transactions copiées.
+     */
+    public long importer(TransactionDAOImpl source) {
+        long avant = taille();
+        List<Transaction> lot = new ArrayList<>();
+        source.forEachApres(dernierId(), transaction -> {
+            lot.add(transaction);
+            if (lot.size() == lignesParSegment) {
+                saveAll(lot);
+                lot.clear();
+            }
+        });
+        saveAll(lot);
+        return taille() - avant;
+    }
+
+    // Plus grand ID présent dans le journal (0 s'il est vide)
+    public long dernierId() {
+        lock.readLock().lock();
+        try {
+            return prochainId - 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long taille() {
+        lock.readLock().lock();
+        try {
+            return nombreLignes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Écritures ---
+
+    /**
+     * Ajoute la transaction au journal. Un ID déjà attribué (écriture validée en base) est conservé,
+     * et une transaction déjà présente n'est pas dupliquée.
+     */
+    @Override
+    public Transaction save(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            Transaction enregistree = ajouter(transaction);
+            apresEcriture(nombreLignes - 1);
+            return enregistree;
+        } catch (RuntimeException e) {
+            System.err.println("Erreur journal lors de l'ajout de la transaction: " + e.getMessage());
+            return transaction;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> saveAll(Collection<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+        lock.writeLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(transactions.size());
+            for (Transaction transaction : transactions) {
+                ids.add(ajouter(transaction).id());
+            }
+            // Un seul fsync pour tout le lot
+            apresEcriture(nombreLignes - 1);
+            return ids;
+        } catch (RuntimeException e) {
+            System.err.println("Erreur journal lors de l'insertion groupée des transactions: " + e.getMessage());
+            return List.of();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(long id) {
+        lock.writeLock().lock();
+        try {
+            long position = positionParId.get(id, AUCUNE);
+            if (position != AUCUNE && etat(position) == ETAT_ACTIVE) {
+                segment(position).put(offset(position) + OFF_ETAT, ETAT_SUPPRIMEE);
+                apresEcriture(position);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marque supprimées toutes les lignes des comptes donnés (leurs transactions ont été supprimées en cascade
+     * par la base), en remontant le chaînage de chaque compte. Un seul fsync pour l'ensemble, selon la politique.
+     */
+    public void retirerComptes(long[] idsComptes) {
+        lock.writeLock().lock();
+        try {
+            boolean retirees = false;
+            for (long idCompte : idsComptes) {
+                long position = dernierePositionParCompte.get(idCompte, AUCUNE);
+                while (position != AUCUNE) {
+                    if (etat(position) == ETAT_ACTIVE) {
+                        segment(position).put(offset(position) + OFF_ETAT, ETAT_SUPPRIMEE);
+                        marquerModifie((int) (position / lignesParSegment));
+                        retirees = true;
+                    }
+                    position = segment(position).getLong(offset(position) + OFF_PRECEDENT);
+                }
+            }
+            if (retirees && politique == PolitiqueSynchro.TOUJOURS) {
+                forcerSegmentsModifies();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erreur journal lors du retrait des transactions des comptes supprimés: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Lectures ---
+
+    @Override
+    public Optional<Transaction> findById(long id) {
+        lock.readLock().lock();
+        try {
+            long position = positionParId.get(id, AUCUNE);
+            return position != AUCUNE && etat(position) == ETAT_ACTIVE
+                    ? Optional.of(lire(position))
+                    : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findByCompteId(long idCompte) {
+        return trier(selectionnerDuCompte(idCompte, position -> true));
+    }
+
+    @Override
+    public List<Transaction> findAll() {
+        return trier(selectionner(position -> true));
+    }
+
+    @Override
+    public Page<Transaction> findPageByCompteId(long idCompte, String jeton, int taillePage) {
+        LongPredicate avantJeton = filtreAvantJeton(jeton);
+        lock.readLock().lock();
+        try {
+            List<Long> candidates = new ArrayList<>();
+            parcourirCompte(idCompte, position -> {
+                if (avantJeton.test(position)) {
+                    candidates.add(position);
+                }
+            });
+            return page(candidates.stream(), taillePage);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<Transaction> findPage(String jeton, int taillePage) {
+        LongPredicate avantJeton = filtreAvantJeton(jeton);
+        lock.readLock().lock();
+        try {
+            return page(LongStream.range(0, nombreLignes)
+                    .filter(position -> etat(position) == ETAT_ACTIVE && avantJeton.test(position))
+                    .boxed(), taillePage);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Parcours séquentiel des pages projetées, sans verrou ni connexion à libérer.
+     * Les lignes ajoutées après l'ouverture du flux n'y figurent pas.
+     */
+    @Override
+    public Stream<Transaction> streamAll() {
+        long fin = taille();
+        return LongStream.range(0, fin)
+                .filter(position -> etat(position) == ETAT_ACTIVE)
+                .mapToObj(this::lire);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Transaction> action) {
+        try (Stream<Transaction> transactions = streamAll()) {
+            transactions.forEach(action);
+        }
+    }
+
+    @Override
+    public List<Transaction> findByMontantMin(double montantMin) {
+        long seuil = Montant.versCentimes(montantMin);
+        return trier(selectionner(position -> montant(position) >= seuil));
+    }
+
+    @Override
+    public List<Transaction> findByDateRange(LocalDate debut, LocalDate fin) {
+        int jourDebut = (int) debut.toEpochDay();
+        int jourFin = (int) fin.toEpochDay();
+        return trier(selectionner(position -> estEntre(jour(position), jourDebut, jourFin)));
+    }
+
+    @Override
+    public List<Transaction> findByCompteIdAndDateRange(long idCompte, LocalDate debut, LocalDate fin) {
+        int jourDebut = (int) debut.toEpochDay();
+        int jourFin = (int) fin.toEpochDay();
+        return trier(selectionnerDuCompte(idCompte, position -> estEntre(jour(position), jourDebut, jourFin)));
+    }
+
+    @Override
+    public List<Transaction> findByLieu(String lieu) {
+        String recherche = lieu.toLowerCase(Locale.ROOT);
+        return trier(selectionner(position -> {
+            String libelle = lieu(position);
+            return libelle != null && libelle.toLowerCase(Locale.ROOT).contains(recherche);
+        }));
+    }
+
+    @Override
+    public List<Transaction> findByType(TypeTransaction type) {
+        byte ordinal = (byte) type.ordinal();
+        return trier(selectionner(position -> segment(position).get(offset(position) + OFF_TYPE) == ordinal));
+    }
+
+    @Override
+    public List<Transaction> findSuspectes(double seuilMontant, String paysHabituel) {
+        long seuil = Montant.versCentimes(seuilMontant);
+        String pays = paysHabituel.toLowerCase(Locale.ROOT);
+        return trier(selectionner(position -> {
+            if (montant(position) > seuil) {
+                return true;
+            }
+            String libelle = lieu(position);
+            return libelle != null && !libelle.toLowerCase(Locale.ROOT).contains(pays);
+        }));
+    }
+
+    @Override
+    public List<StatistiquesTransaction> aggregateByType(LocalDate debut, LocalDate fin) {
+        int jourDebut = (int) debut.toEpochDay();
+        int jourFin = (int) fin.toEpochDay();
+        CumulParType cumul = new CumulParType();
+
+        lock.readLock().lock();
+        try {
+            for (long position = 0; position < nombreLignes; position++) {
+                if (etat(position) != ETAT_ACTIVE || !estEntre(jour(position), jourDebut, jourFin)) {
+                    continue;
+                }
+                cumul.ajouter(segment(position).get(offset(position) + OFF_TYPE), montant(position));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return cumul.versStatistiques();
+    }
+
+    @Override
+    public NavigableMap<YearMonth, List<StatistiquesTransaction>> aggregateByMonthAndType(LocalDate debut, LocalDate fin) {
+        int jourDebut = (int) debut.toEpochDay();
+        int jourFin = (int) fin.toEpochDay();
+        Map<YearMonth, CumulParType> parMois = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (long position = 0; position < nombreLignes; position++) {
+                int jour = jour(position);
+                if (etat(position) != ETAT_ACTIVE || !estEntre(jour, jourDebut, jourFin)) {
+                    continue;
+                }
+                parMois.computeIfAbsent(YearMonth.from(LocalDate.ofEpochDay(jour)), mois -> new CumulParType())
+                        .ajouter(segment(position).get(offset(position) + OFF_TYPE), montant(position));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        NavigableMap<YearMonth, List<StatistiquesTransaction>> statistiques = new TreeMap<>();
+        parMois.forEach((mois, cumul) -> statistiques.put(mois, cumul.versStatistiques()));
+        return statistiques;
+    }
+
+    // Nombre, somme, min et max (en centimes) par type de transaction
+    private static final class CumulParType {
+        private final long[] nombres = new long[TYPES.length];
+        private final long[] sommes = new long[TYPES.length];
+        private final long[] mins = new long[TYPES.length];
+        private final long[] maxs = new long[TYPES.length];
+
+        private CumulParType() {
+            Arrays.fill(mins, Long.MAX_VALUE);
+            Arrays.fill(maxs, Long.MIN_VALUE);
+        }
+
+        private void ajouter(int type, long montant) {
+            nombres[type]++;
+            sommes[type] += montant;
+            mins[type] = Math.min(mins[type], montant);
+            maxs[type] = Math.max(maxs[type], montant);
+        }
+
+        private List<StatistiquesTransaction> versStatistiques() {
+            List<StatistiquesTransaction> statistiques = new ArrayList<>();
+            for (int type = 0; type < TYPES.length; type++) {
+                if (nombres[type] > 0) {
+                    statistiques.add(new StatistiquesTransaction(TYPES[type], nombres[type],
+                            Montant.versMontant(sommes[type]), Montant.versMontant(mins[type]), Montant.versMontant(maxs[type]),
+                            Montant.versMontant(sommes[type]) / nombres[type]));
+                }
+            }
+            return statistiques;
+        }
+    }
+
+    /**
+     * Force les pages modifiées sur disque et arrête la synchronisation de fond.
+     */
+    @Override
+    public void close() {
+        if (synchroniseur != null) {
+            synchroniseur.shutdownNow();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ferme) {
+                ferme = true;
+                forcerSegmentsModifies();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Écriture d'un enregistrement (appelé sous verrou d'écriture) ---
+
+    private Transaction ajouter(Transaction transaction) {
+        if (ferme) {
+            throw new IllegalStateException("Le journal est fermé.");
+        }
+        long id = transaction.id();
+        if (id > 0 && positionParId.containsKey(id)) {
+            return transaction;
+        }
+        if (id <= 0) {
+            id = prochainId;
+        }
+        prochainId = Math.max(prochainId, id + 1);
+
+        long position = nombreLignes;
+        if (position == segments.length * (long) lignesParSegment) {
+            nouveauSegment();
+        }
+        MappedByteBuffer segment = segment(position);
+        int base = offset(position);
+        segment.putLong(base + OFF_ID, id);
+        segment.putInt(base + OFF_JOUR, transaction.date() == null ? JOUR_ABSENT : (int) transaction.date().toEpochDay());
+        segment.putLong(base + OFF_MONTANT, Montant.versCentimes(transaction.montant()));
+        segment.put(base + OFF_TYPE, (byte) transaction.type().ordinal());
+        segment.putLong(base + OFF_COMPTE, transaction.idCompte());
+        segment.putLong(base + OFF_PRECEDENT, dernierePositionParCompte.get(transaction.idCompte(), AUCUNE));
+        ecrireLieu(segment, base, transaction.lieu());
+        // L'état est écrit en dernier : après un arrêt brutal, une ligne incomplète reste "libre"
+        segment.put(base + OFF_ETAT, ETAT_ACTIVE);
+
+        positionParId.put(id, position);
+        dernierePositionParCompte.put(transaction.idCompte(), position);
+        nombreLignes++;
+        return new Transaction(id, transaction.date(), transaction.montant(),
+                transaction.type(), transaction.lieu(), transaction.idCompte());
+    }
+
+    private static void ecrireLieu(MappedByteBuffer segment, int base, String lieu) {
+        if (lieu == null) {
+            segment.putShort(base + OFF_LONGUEUR_LIEU, (short) -1);
+            return;
+        }
+        String tronque = lieu;
+        byte[] octets = tronque.getBytes(StandardCharsets.UTF_8);
+        // Troncature sur une frontière de caractère si le libellé dépasse la place réservée
+        while (octets.length > LIEU_MAX_OCTETS) {
+            tronque = tronque.substring(0, tronque.offsetByCodePoints(tronque.length(), -1));
+            octets = tronque.getBytes(StandardCharsets.UTF_8);
+        }
+        segment.putShort(base + OFF_LONGUEUR_LIEU, (short) octets.length);
+        segment.put(base + OFF_LIEU, octets);
+    }
+
+    private void apresEcriture(long position) {
+        if (position < 0) {
+            return;
+        }
+        marquerModifie((int) (position / lignesParSegment));
+        if (politique == PolitiqueSynchro.TOUJOURS) {
+            forcerSegmentsModifies();
+        }
+    }
+
+    private void nouveauSegment() {
+        // Le segment plein ne sera plus modifié (sauf suppression) : il est forcé sur disque avant de passer au suivant
+        if (politique != PolitiqueSynchro.JAMAIS && segments.length > 0) {
+            forcerSegmentsModifies();
+        }
+        try {
+            ajouterSegment(projeter(repertoire.resolve(String.format("segment-%06d.ledger", segments.length))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Création d'un segment du journal impossible", e);
+        }
+    }
+
+    // Le tableau est complet avant d'être publié : un lecteur voit l'ancien ou le nouveau, jamais un état intermédiaire
+    private void ajouterSegment(MappedByteBuffer segment) {
+        MappedByteBuffer[] agrandis = Arrays.copyOf(segments, segments.length + 1);
+        agrandis[agrandis.length - 1] = segment;
+        segments = agrandis;
+    }
+
+    private MappedByteBuffer projeter(Path fichier) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // La projection reste valide après la fermeture du canal
+            return canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) lignesParSegment * TAILLE_LIGNE);
+        }
+    }
+
+    private List<Path> segmentsExistants() throws IOException {
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers
+                    .filter(fichier -> fichier.getFileName().toString().matches("segment-\\d{6}\\.ledger"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Relit les segments jusqu'à la première ligne libre pour reconstruire index et chaînages
+    private void reconstruireIndex() {
+        long capacite = segments.length * (long) lignesParSegment;
+        long position = 0;
+        while (position < capacite && etat(position) != ETAT_LIBRE) {
+            MappedByteBuffer segment = segment(position);
+            int base = offset(position);
+            long id = segment.getLong(base + OFF_ID);
+            positionParId.put(id, position);
+            dernierePositionParCompte.put(segment.getLong(base + OFF_COMPTE), position);
+            prochainId = Math.max(prochainId, id + 1);
+            position++;
+        }
+        nombreLignes = position;
+    }
+
+    // --- Synchronisation disque ---
+
+    private void synchroniser() {
+        if (!modifie) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            forcerSegmentsModifies();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private synchronized void marquerModifie(int indiceSegment) {
+        premierSegmentNonSynchronise = Math.min(premierSegmentNonSynchronise, indiceSegment);
+        modifie = true;
+    }
+
+    private synchronized void forcerSegmentsModifies() {
+        modifie = false;
+        MappedByteBuffer[] projetes = segments;
+        for (int i = premierSegmentNonSynchronise; i < projetes.length; i++) {
+            projetes[i].force();
+        }
+        premierSegmentNonSynchronise = Math.max(0, projetes.length - 1);
+    }
+
+    // --- Lecture des champs en place ---
+
+    private MappedByteBuffer segment(long position) {
+        return segments[(int) (position / lignesParSegment)];
+    }
+
+    private int offset(long position) {
+        return (int) (position % lignesParSegment) * TAILLE_LIGNE;
+    }
+
+    private byte etat(long position) {
+        return segment(position).get(offset(position) + OFF_ETAT);
+    }
+
+    private int jour(long position) {
+        return segment(position).getInt(offset(position) + OFF_JOUR);
+    }
+
+    private long montant(long position) {
+        return segment(position).getLong(offset(position) + OFF_MONTANT);
+    }
+
+    private long id(long position) {
+        return segment(position).getLong(offset(position) + OFF_ID);
+    }
+
+    private String lieu(long position) {
+        MappedByteBuffer segment = segment(position);
+        int base = offset(position);
+        short longueur = segment.getShort(base + OFF_LONGUEUR_LIEU);
+        if (longueur < 0) {
+            return null;
+        }
+        byte[] octets = new byte[longueur];
+        segment.get(base + OFF_LIEU, octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    private Transaction lire(long position) {
+        MappedByteBuffer segment = segment(position);
+        int base = offset(position);
+        int jour = segment.getInt(base + OFF_JOUR);
+        return new Transaction(
+                segment.getLong(base + OFF_ID),
+                jour == JOUR_ABSENT ? null : LocalDate.ofEpochDay(jour),
+                Montant.versMontant(segment.getLong(base + OFF_MONTANT)),
+                TYPES[segment.get(base + OFF_TYPE)],
+                lieu(position),
+                segment.getLong(base + OFF_COMPTE));
+    }
+
+    // --- Parcours ---
+
+    private List<Transaction> selectionner(LongPredicate filtre) {
+        lock.readLock().lock();
+        try {
+            List<Transaction> resultat = new ArrayList<>();
+            for (long position = 0; position < nombreLignes; position++) {
+                if (etat(position) == ETAT_ACTIVE && filtre.test(position)) {
+                    resultat.add(lire(position));
+                }
+            }
+            return resultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Transaction> selectionnerDuCompte(long idCompte, LongPredicate filtre) {
+        lock.readLock().lock();
+        try {
+            List<Transaction> resultat = new ArrayList<>();
+            parcourirCompte(idCompte, position -> {
+                if (filtre.test(position)) {
+                    resultat.add(lire(position));
+                }
+            });
+            return resultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Remonte le chaînage du compte, de la ligne la plus récente à la plus ancienne (sous verrou de lecture)
+    private void parcourirCompte(long idCompte, LongConsumer action) {
+        long position = dernierePositionParCompte.get(idCompte, AUCUNE);
+        while (position != AUCUNE) {
+            if (etat(position) == ETAT_ACTIVE) {
+                action.accept(position);
+            }
+            position = segment(position).getLong(offset(position) + OFF_PRECEDENT);
+        }
+    }
+
+    // --- Pagination par clé (dateTrans DESC, id DESC), jeton au même format que TransactionDAOImpl ---
+
+    private LongPredicate filtreAvantJeton(String jeton) {
+        if (jeton == null) {
+            return position -> true;
+        }
+        Transaction derniere = TransactionDAOImpl.decoderJeton(jeton);
+        int jourJeton = (int) derniere.date().toEpochDay();
+        long idJeton = derniere.id();
+        return position -> {
+            int jour = jour(position);
+            return jour < jourJeton || (jour == jourJeton && id(position) < idJeton);
+        };
+    }
+
+    // Tas borné aux taillePage + 1 positions les plus récentes (appelé sous verrou de lecture)
+    private Page<Transaction> page(Stream<Long> positions, int taillePage) {
+        if (taillePage <= 0) {
+            throw new IllegalArgumentException("La taille de page doit être positive.");
+        }
+        Comparator<Long> chronologique = Comparator.<Long>comparingInt(this::jour).thenComparingLong(this::id);
+        List<Transaction> transactions = positions
+                .collect(TopK.collector(taillePage + 1, chronologique))
+                .stream()
+                .map(this::lire)
+                .toList();
+        if (transactions.size() <= taillePage) {
+            return new Page<>(transactions, null);
+        }
+        List<Transaction> page = transactions.subList(0, taillePage);
+        return new Page<>(List.copyOf(page), TransactionDAOImpl.encoderJeton(page.get(taillePage - 1)));
+    }
+
+    // --- Utilitaires ---
+
+    private static List<Transaction> trier(List<Transaction> transactions) {
+        transactions.sort(PLUS_RECENTES_D_ABORD);
+        return transactions;
+    }
+
+    private static boolean estEntre(int jour, int jourDebut, int jourFin) {
+        return jour != JOUR_ABSENT && jour >= jourDebut && jour <= jourFin;
+    }
+}
@@ -0,0 +1,15 @@
+package dao;
+
+import entity.ResultatOperation;
+
+import java.time.LocalDate;
+
+/**
+ * Opérations bancaires atomiques : la mise à jour du solde (avec contrôle des plafonds en SQL)
+ * et l'écriture au journal des transactions sont validées dans une seule transaction JDBC.
+ */
+public interface OperationDAO {
+    ResultatOperation retrait(long idCompte, double montant, String lieu, LocalDate date);
+    ResultatOperation versement(long idCompte, double montant, String lieu, LocalDate date);
+    ResultatOperation virement(long idCompteSource, long idCompteDest, double montant, LocalDate date);
+}
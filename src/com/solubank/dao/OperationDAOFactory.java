@@ -0,0 +1,37 @@
+package dao;
+
+import util.DatabaseConnection;
+
+/**
+ * Choix de l'exécution des opérations bancaires partagé par les services (db.properties) :
+ * une transaction JDBC par opération (par défaut) ou validation groupée (operations.groupCommit.enabled=true).
+ * Une seule instance, pour que toutes les opérations concurrentes passent par le même thread de validation.
+ */
+public final class OperationDAOFactory {
+
+    private static final OperationDAO INSTANCE = creer();
+
+    private OperationDAOFactory() {
+        throw new UnsupportedOperationException("Cette classe ne doit pas être instanciée.");
+    }
+
+    public static OperationDAO getOperationDAO() {
+        return INSTANCE;
+    }
+
+    // Valide les opérations encore en file à l'arrêt de l'application (sans effet sans validation groupée)
+    public static void fermer() {
+        if (INSTANCE instanceof GroupCommitOperationDAO groupe) {
+            groupe.close();
+        }
+    }
+
+    private static OperationDAO creer() {
+        if (!DatabaseConnection.getBooleanProperty("operations.groupCommit.enabled", false)) {
+            return new OperationDAOImpl();
+        }
+        return new GroupCommitOperationDAO(
+                DatabaseConnection.getIntProperty("operations.groupCommit.maxBatch", 256),
+                DatabaseConnection.getLongProperty("operations.groupCommit.windowMicros", 500));
+    }
+}
@@ -0,0 +1,181 @@
+package dao;
+
+import entity.ResultatOperation;
+import entity.StatutOperation;
+import entity.Transaction;
+import entity.TypeTransaction;
+import util.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+public class OperationDAOImpl implements OperationDAO {
+
+    // Débit conditionnel : reprend les règles de CompteCourant.debiter (découvert autorisé)
+    // et de CompteEpargne.debiter (solde jamais négatif). Aucune ligne retournée = débit refusé.
+    private static final String DEBITER_COMPTE =
+            "UPDATE Compte SET solde = solde - ? " +
+                    "WHERE id = ? AND solde - ? >= CASE WHEN LOWER(typeCompte) = 'courant' " +
+                    "THEN -COALESCE(decouvertAutorise, 0) ELSE 0 END " +
+                    "RETURNING solde";
+    private static final String CREDITER_COMPTE =
+            "UPDATE Compte SET solde = solde + ? WHERE id = ? RETURNING solde";
+    private static final String EXISTE_COMPTE =
+            "SELECT 1 FROM Compte WHERE id = ?";
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO Transaction (dateTrans, montant, type, lieu, idCompte) " +
+                    "VALUES (?, ?, ?::TransactionType, ?, ?) RETURNING id";
+
+    // Levée en interne pour annuler la transaction JDBC avec un statut métier
+    private static final class OperationRefusee extends Exception {
+        private static final long serialVersionUID = 1L;
+        private final StatutOperation statut;
+
+        private OperationRefusee(StatutOperation statut) {
+            super(statut.name(), null, false, false);
+            this.statut = statut;
+        }
+    }
+
+    @Override
+    public ResultatOperation retrait(long idCompte, double montant, String lieu, LocalDate date) {
+        return executerTransaction(conn -> {
+            Map<Long, Double> soldes = new LinkedHashMap<>();
+            List<Transaction> ecritures = new ArrayList<>();
+
+            soldes.put(idCompte, debiter(conn, idCompte, montant));
+            ecritures.add(inserer(conn, new Transaction(0, date, montant, TypeTransaction.RETRAIT, lieu, idCompte)));
+
+            return new ResultatOperation(StatutOperation.SUCCES, ecritures, soldes);
+        });
+    }
+
+    @Override
+    public ResultatOperation versement(long idCompte, double montant, String lieu, LocalDate date) {
+        return executerTransaction(conn -> {
+            Map<Long, Double> soldes = new LinkedHashMap<>();
+            List<Transaction> ecritures = new ArrayList<>();
+
+            soldes.put(idCompte, crediter(conn, idCompte, montant));
+            ecritures.add(inserer(conn, new Transaction(0, date, montant, TypeTransaction.VERSEMENT, lieu, idCompte)));
+
+            return new ResultatOperation(StatutOperation.SUCCES, ecritures, soldes);
+        });
+    }
+
+    @Override
+    public ResultatOperation virement(long idCompteSource, long idCompteDest, double montant, LocalDate date) {
+        return executerTransaction(conn -> {
+            Map<Long, Double> soldes = new LinkedHashMap<>();
+            List<Transaction> ecritures = new ArrayList<>();
+
+            // Les lignes sont verrouillées dans l'ordre croissant des ID pour éviter les interblocages
+            // entre deux virements croisés ; un débit refusé annule aussi le crédit déjà appliqué.
+            if (idCompteSource <= idCompteDest) {
+                soldes.put(idCompteSource, debiter(conn, idCompteSource, montant));
+                soldes.put(idCompteDest, crediter(conn, idCompteDest, montant));
+            } else {
+                soldes.put(idCompteDest, crediter(conn, idCompteDest, montant));
+                soldes.put(idCompteSource, debiter(conn, idCompteSource, montant));
+            }
+
+            // Mêmes écritures que l'enchaînement historique retrait + versement
+            ecritures.add(inserer(conn, new Transaction(0, date, montant, TypeTransaction.RETRAIT,
+                    "Virement sortant vers Compte ID " + idCompteDest, idCompteSource)));
+            ecritures.add(inserer(conn, new Transaction(0, date, montant, TypeTransaction.VERSEMENT,
+                    "Virement entrant de Compte ID " + idCompteSource, idCompteDest)));
+
+            return new ResultatOperation(StatutOperation.SUCCES, ecritures, soldes);
+        });
+    }
+
+    @FunctionalInterface
+    private interface Travail {
+        ResultatOperation executer(Connection conn) throws SQLException, OperationRefusee;
+    }
+
+    // Exécute le travail dans une transaction JDBC : commit si tout réussit, rollback sinon
+    private ResultatOperation executerTransaction(Travail travail) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                ResultatOperation resultat = travail.executer(conn);
+                conn.commit();
+                ResultatsVersionnes.signalerEcriture();
+                return resultat;
+            } catch (OperationRefusee e) {
+                conn.rollback();
+                return ResultatOperation.echec(e.statut);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de l'opération bancaire: " + e.getMessage());
+        }
+        return ResultatOperation.echec(StatutOperation.ERREUR);
+    }
+
+    private double debiter(Connection conn, long idCompte, double montant) throws SQLException, OperationRefusee {
+        OptionalDouble solde = mettreAJourSolde(conn, DEBITER_COMPTE, idCompte, montant, true);
+        if (solde.isEmpty()) {
+            // Aucune ligne modifiée : compte absent ou plafond atteint
+            throw new OperationRefusee(compteExiste(conn, idCompte)
+                    ? StatutOperation.SOLDE_INSUFFISANT
+                    : StatutOperation.COMPTE_INTROUVABLE);
+        }
+        return solde.getAsDouble();
+    }
+
+    private double crediter(Connection conn, long idCompte, double montant) throws SQLException, OperationRefusee {
+        OptionalDouble solde = mettreAJourSolde(conn, CREDITER_COMPTE, idCompte, montant, false);
+        if (solde.isEmpty()) {
+            throw new OperationRefusee(StatutOperation.COMPTE_INTROUVABLE);
+        }
+        return solde.getAsDouble();
+    }
+
+    private OptionalDouble mettreAJourSolde(Connection conn, String sql, long idCompte, double montant,
+                                            boolean conditionnel) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDouble(1, montant);
+            ps.setLong(2, idCompte);
+            if (conditionnel) {
+                ps.setDouble(3, montant);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? OptionalDouble.of(rs.getDouble(1)) : OptionalDouble.empty();
+            }
+        }
+    }
+
+    private boolean compteExiste(Connection conn, long idCompte) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(EXISTE_COMPTE)) {
+            ps.setLong(1, idCompte);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private Transaction inserer(Connection conn, Transaction transaction) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_TRANSACTION)) {
+            ps.setDate(1, Date.valueOf(transaction.date()));
+            ps.setDouble(2, transaction.montant());
+            ps.setString(3, transaction.type().name());
+            ps.setString(4, transaction.lieu());
+            ps.setLong(5, transaction.idCompte());
+
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new Transaction(rs.getLong(1), transaction.date(), transaction.montant(),
+                        transaction.type(), transaction.lieu(), transaction.idCompte());
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package dao;
+
+import java.util.List;
+
+// Page de résultats d'une pagination par clé (keyset) : le jeton permet de demander la page suivante
+public record Page<T>(List<T> elements, String jetonSuivant) {
+
+    public boolean aSuite() {
+        return jetonSuivant != null;
+    }
+}
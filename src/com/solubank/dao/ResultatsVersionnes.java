@@ -0,0 +1,69 @@
+package dao;
+
+import util.DatabaseConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache du résultat d'une lecture complète de table (findAll), partagé par toutes les instances d'un DAO.
+ * Chaque écriture des DAO (insertion, mise à jour, suppression, opération bancaire) incrémente une version
+ * globale : un résultat mis en cache sous une version antérieure est relu en base, les lectures répétées
+ * entre deux écritures ne coûtent rien.
+ */
+final class ResultatsVersionnes<T> {
+
+    private static final AtomicLong VERSION_ECRITURES = new AtomicLong();
+    private static final boolean ACTIF = DatabaseConnection.getBooleanProperty("cache.findAll.enabled", true);
+    // Au-delà, le résultat n'est pas conservé (mémoire)
+    private static final int LIGNES_MAX = DatabaseConnection.getIntProperty("cache.findAll.maxRows", 100_000);
+
+    private record Instantane<T>(long version, List<T> elements) {
+    }
+
+    // Copie remise à chaque appelant pour les entités modifiables (null : éléments immuables partagés)
+    private final UnaryOperator<T> copie;
+    private volatile Instantane<T> instantane;
+
+    ResultatsVersionnes(UnaryOperator<T> copie) {
+        this.copie = copie;
+    }
+
+    /**
+     * À appeler après chaque écriture validée en base.
+     */
+    static void signalerEcriture() {
+        VERSION_ECRITURES.incrementAndGet();
+    }
+
+    List<T> obtenir(Supplier<List<T>> lecture) {
+        if (!ACTIF) {
+            return lecture.get();
+        }
+        // Version lue AVANT la requête : une écriture concurrente rendra ce résultat aussitôt périmé
+        long version = VERSION_ECRITURES.get();
+        Instantane<T> courant = instantane;
+        if (courant != null && courant.version() == version) {
+            return copier(courant.elements());
+        }
+        List<T> elements = lecture.get();
+        // Une erreur de lecture renvoie aussi une liste vide : les résultats vides ne sont pas conservés
+        if (!elements.isEmpty() && elements.size() <= LIGNES_MAX) {
+            instantane = new Instantane<>(version, List.copyOf(elements));
+        }
+        return elements;
+    }
+
+    // Les appelants reçoivent une liste modifiable, comme à la sortie de la base
+    private List<T> copier(List<T> elements) {
+        if (copie == null) {
+            return new ArrayList<>(elements);
+        }
+        List<T> copies = new ArrayList<>(elements.size());
+        elements.forEach(element -> copies.add(copie.apply(element)));
+        return copies;
+    }
+}
@@ -1,14 +1,45 @@
 // Dans le package com.solubank.dao
 package dao;
 
+import entity.StatistiquesTransaction;
 import entity.Transaction;
+import entity.TypeTransaction;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface TransactionDAO {
     Transaction save(Transaction transaction);
+    // Insertion groupée : retourne les ID générés dans l'ordre de la collection (liste vide en cas d'échec)
+    List<Long> saveAll(Collection<Transaction> transactions);
     Optional<Transaction> findById(long id);
     List<Transaction> findByCompteId(long idCompte);
     List<Transaction> findAll();
+    // Pagination par clé (dateTrans DESC, id DESC) : jeton null pour la première page
+    Page<Transaction> findPageByCompteId(long idCompte, String jeton, int taillePage);
+    Page<Transaction> findPage(String jeton, int taillePage);
+    // Lecture en flux via un curseur : le Stream doit être fermé (try-with-resources) pour libérer la connexion.
+    // Une erreur de lecture en cours de parcours lève IllegalStateException (le flux n'est jamais tronqué en silence).
+    Stream<Transaction> streamAll();
+    void forEach(Consumer<? super Transaction> action);
+
+    // Recherches filtrées côté base de données (seules les lignes retenues sont transférées)
+    List<Transaction> findByMontantMin(double montantMin);
+    List<Transaction> findByDateRange(LocalDate debut, LocalDate fin);
+    List<Transaction> findByCompteIdAndDateRange(long idCompte, LocalDate debut, LocalDate fin);
+    List<Transaction> findByLieu(String lieu);
+    List<Transaction> findByType(TypeTransaction type);
+    List<Transaction> findSuspectes(double seuilMontant, String paysHabituel);
+
+    // Agrégation GROUP BY type sur une période (bornes incluses)
+    List<StatistiquesTransaction> aggregateByType(LocalDate debut, LocalDate fin);
+    // Agrégation GROUP BY (mois, type) en une seule requête, par mois croissant (mois sans transaction absents)
+    NavigableMap<YearMonth, List<StatistiquesTransaction>> aggregateByMonthAndType(LocalDate debut, LocalDate fin);
     void delete(long id);
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package dao;
+
+import util.DatabaseConnection;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Choix du stockage des transactions partagé par les services (db.properties) :
+ * transactions.storage=jdbc (PostgreSQL, par défaut) ou ledger (journal local projeté en mémoire).
+ */
+public final class TransactionDAOFactory {
+
+    // Transactions copiées de la base vers le journal local à ce démarrage, et durée de la copie
+    public record Rattrapage(long transactions, long dureeNanos) {
+    }
+
+    private static Rattrapage rattrapage;
+    private static final TransactionDAO INSTANCE = creer();
+
+    private TransactionDAOFactory() {
+        throw new UnsupportedOperationException("Cette classe ne doit pas être instanciée.");
+    }
+
+    public static TransactionDAO getTransactionDAO() {
+        return INSTANCE;
+    }
+
+    // Rattrapage du journal local sur la base au démarrage, s'il a eu lieu
+    public static Optional<Rattrapage> rattrapage() {
+        return Optional.ofNullable(rattrapage);
+    }
+
+    // Force le journal local sur disque à l'arrêt de l'application (sans effet en mode JDBC)
+    public static void fermer() {
+        if (INSTANCE instanceof MappedLedgerTransactionDAO journal) {
+            journal.close();
+        }
+    }
+
+    private static TransactionDAO creer() {
+        TransactionDAOImpl base = new TransactionDAOImpl();
+        if (!"ledger".equalsIgnoreCase(DatabaseConnection.getProperty("transactions.storage", "jdbc"))) {
+            return base;
+        }
+        try {
+            MappedLedgerTransactionDAO journal = new MappedLedgerTransactionDAO(
+                    Path.of(DatabaseConnection.getProperty("ledger.directory", "ledger")),
+                    DatabaseConnection.getIntProperty("ledger.segment.records", 65536),
+                    MappedLedgerTransactionDAO.PolitiqueSynchro.valueOf(
+                            DatabaseConnection.getProperty("ledger.fsync", "PERIODIQUE").toUpperCase(Locale.ROOT)),
+                    DatabaseConnection.getLongProperty("ledger.fsync.intervalMillis", 1000));
+            // À chaque démarrage, le journal reçoit les transactions de la base postérieures à sa dernière
+            // (tout l'historique au premier démarrage)
+            if (DatabaseConnection.getBooleanProperty("ledger.importFromDatabase", true)) {
+                long debut = System.nanoTime();
+                long copiees = journal.importer(base);
+                rattrapage = new Rattrapage(copiees, System.nanoTime() - debut);
+            }
+            return journal;
+        } catch (UncheckedIOException | IllegalArgumentException | IllegalStateException e) {
+            System.err.println("Journal local indisponible, utilisation de PostgreSQL : " + e.getMessage());
+            return base;
+        }
+    }
+}
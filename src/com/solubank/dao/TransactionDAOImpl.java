@@ -1,15 +1,28 @@
 // Dans le package com.solubank.dao
 package dao;
 
+import entity.StatistiquesTransaction;
 import entity.Transaction;
 import entity.TypeTransaction; // Assurez-vous d'importer l'enum
 import util.DatabaseConnection;
 
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class TransactionDAOImpl implements TransactionDAO {
 
@@ -23,9 +36,81 @@ public class TransactionDAOImpl implements TransactionDAO {
             "SELECT * FROM Transaction WHERE idCompte = ? ORDER BY dateTrans DESC"; // Tri par défaut
     private static final String SELECT_ALL_TRANSACTIONS =
             "SELECT * FROM Transaction ORDER BY dateTrans DESC";
+    // Pagination par clé sur (dateTrans, id) : coût constant par page grâce à l'index, contrairement à OFFSET
+    private static final String SELECT_PAGE_BY_COMPTE =
+            "SELECT * FROM Transaction WHERE idCompte = ? ORDER BY dateTrans DESC, id DESC LIMIT ?";
+    private static final String SELECT_PAGE_BY_COMPTE_APRES =
+            "SELECT * FROM Transaction WHERE idCompte = ? AND (dateTrans, id) < (?, ?) " +
+                    "ORDER BY dateTrans DESC, id DESC LIMIT ?";
+    private static final String SELECT_PAGE =
+            "SELECT * FROM Transaction ORDER BY dateTrans DESC, id DESC LIMIT ?";
+    private static final String SELECT_PAGE_APRES =
+            "SELECT * FROM Transaction WHERE (dateTrans, id) < (?, ?) ORDER BY dateTrans DESC, id DESC LIMIT ?";
+    private static final String SELECT_TRANSACTION_BY_MONTANT_MIN =
+            "SELECT * FROM Transaction WHERE montant >= ? ORDER BY dateTrans DESC";
+    private static final String SELECT_TRANSACTION_BY_DATES =
+            "SELECT * FROM Transaction WHERE dateTrans BETWEEN ? AND ? ORDER BY dateTrans DESC";
+    private static final String SELECT_TRANSACTION_BY_COMPTE_ET_DATES =
+            "SELECT * FROM Transaction WHERE idCompte = ? AND dateTrans BETWEEN ? AND ? ORDER BY dateTrans DESC";
+    private static final String SELECT_TRANSACTION_BY_LIEU =
+            "SELECT * FROM Transaction WHERE lieu ILIKE ? ORDER BY dateTrans DESC";
+    private static final String SELECT_TRANSACTION_BY_TYPE =
+            "SELECT * FROM Transaction WHERE type = ?::TransactionType ORDER BY dateTrans DESC";
+    private static final String SELECT_TRANSACTIONS_SUSPECTES =
+            "SELECT * FROM Transaction WHERE montant > ? OR (lieu IS NOT NULL AND lieu NOT ILIKE ?) " +
+                    "ORDER BY dateTrans DESC";
+    private static final String AGGREGATE_BY_TYPE =
+            "SELECT type, COUNT(*) AS nombre, SUM(montant) AS volumeTotal, MIN(montant) AS montantMin, " +
+                    "MAX(montant) AS montantMax, AVG(montant) AS montantMoyen " +
+                    "FROM Transaction WHERE dateTrans BETWEEN ? AND ? GROUP BY type";
+    private static final String AGGREGATE_BY_MONTH_AND_TYPE =
+            "SELECT CAST(date_trunc('month', dateTrans) AS DATE) AS mois, type, COUNT(*) AS nombre, " +
+                    "SUM(montant) AS volumeTotal, MIN(montant) AS montantMin, MAX(montant) AS montantMax, " +
+                    "AVG(montant) AS montantMoyen " +
+                    "FROM Transaction WHERE dateTrans BETWEEN ? AND ? GROUP BY 1, type ORDER BY 1";
+    private static final String SELECT_ALL_TRANSACTIONS_CURSEUR =
+            "SELECT * FROM Transaction"; // Sans tri : parcours séquentiel pour les analyses
+    private static final String SELECT_TRANSACTIONS_APRES_ID_CURSEUR =
+            "SELECT * FROM Transaction WHERE id > ? ORDER BY id";
     private static final String DELETE_TRANSACTION =
             "DELETE FROM Transaction WHERE id = ?";
 
+    // Requêtes de l'insertion groupée
+    private static final String INSERT_TRANSACTION_BATCH =
+            "INSERT INTO Transaction (dateTrans, montant, type, lieu, idCompte) " +
+                    "VALUES (?, ?, ?::TransactionType, ?, ?)";
+    private static final String RESERVER_IDS_TRANSACTION =
+            "SELECT nextval(pg_get_serial_sequence('transaction', 'id')) FROM generate_series(1, ?)";
+    private static final String COPY_TRANSACTION =
+            "COPY Transaction (id, dateTrans, montant, type, lieu, idCompte) FROM STDIN";
+
+    // Taille des lots JDBC / COPY, configurable dans db.properties
+    private static final int TAILLE_LOT = Math.max(1, DatabaseConnection.getIntProperty("db.batch.size", 500));
+    private static final boolean UTILISER_COPY = DatabaseConnection.getBooleanProperty("db.batch.useCopy", true);
+    // Nombre de lignes rapatriées par aller-retour lors d'une lecture par curseur
+    private static final int TAILLE_FETCH = Math.max(1, DatabaseConnection.getIntProperty("db.fetch.size", 1000));
+
+    /**
+     * Méthode, nombre de lignes et durée d'une insertion groupée, à afficher par l'appelant.
+     */
+    public record StatistiquesInsertion(String methode, int lignes, long dureeNanos) {
+
+        public double lignesParSeconde() {
+            return dureeNanos == 0 ? 0.0 : lignes * 1_000_000_000.0 / dureeNanos;
+        }
+    }
+
+    // Résultat de findAll partagé par toutes les instances, relu après chaque écriture (Transaction est immuable)
+    private static final ResultatsVersionnes<Transaction> TOUTES_LES_TRANSACTIONS = new ResultatsVersionnes<>(null);
+
+    private volatile StatistiquesInsertion derniereInsertion;
+
+    // Affectation des paramètres d'une requête préparée
+    @FunctionalInterface
+    private interface ParametresRequete {
+        void appliquer(PreparedStatement ps) throws SQLException;
+    }
+
     // --- Méthode d'aide pour le mapping ---
     private Transaction mapRowToTransaction(ResultSet rs) throws SQLException {
         // Conversion de Date SQL en LocalDate Java 8+
@@ -57,6 +142,7 @@ public class TransactionDAOImpl implements TransactionDAO {
             ps.setLong(5, transaction.idCompte());
 
             ResultSet rs = ps.executeQuery();
+            ResultatsVersionnes.signalerEcriture();
             if (rs.next()) {
                 long generatedId = rs.getLong(1);
                 // Retourne un nouvel objet Transaction avec l'ID généré
@@ -70,6 +156,152 @@ public class TransactionDAOImpl implements TransactionDAO {
         return transaction;
     }
 
+    // Statistiques de la dernière insertion groupée réussie (null avant la première)
+    public StatistiquesInsertion derniereInsertion() {
+        return derniereInsertion;
+    }
+
+    @Override
+    public List<Long> saveAll(Collection<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+        List<Transaction> aInserer = new ArrayList<>(transactions);
+        long debut = System.nanoTime();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                Optional<Object> copyManager = UTILISER_COPY ? trouverCopyManager(conn) : Optional.empty();
+                List<Long> ids = copyManager.isPresent()
+                        ? insererParCopy(conn, copyManager.get(), aInserer)
+                        : insererParLots(conn, aInserer);
+                conn.commit();
+                ResultatsVersionnes.signalerEcriture();
+
+                derniereInsertion = new StatistiquesInsertion(copyManager.isPresent() ? "COPY" : "lots JDBC",
+                        ids.size(), System.nanoTime() - debut);
+                return ids;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de l'insertion groupée des transactions: " + e.getMessage());
+        }
+        return List.of();
+    }
+
+    // Insertion par lots JDBC (addBatch/executeBatch), les clés générées suivent l'ordre du lot
+    private List<Long> insererParLots(Connection conn, List<Transaction> transactions) throws SQLException {
+        List<Long> ids = new ArrayList<>(transactions.size());
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_TRANSACTION_BATCH, new String[]{"id"})) {
+            int enAttente = 0;
+            for (Transaction transaction : transactions) {
+                ps.setDate(1, Date.valueOf(transaction.date()));
+                ps.setDouble(2, transaction.montant());
+                ps.setString(3, transaction.type().name());
+                ps.setString(4, transaction.lieu());
+                ps.setLong(5, transaction.idCompte());
+                ps.addBatch();
+
+                if (++enAttente == TAILLE_LOT) {
+                    executerLot(ps, ids);
+                    enAttente = 0;
+                }
+            }
+            if (enAttente > 0) {
+                executerLot(ps, ids);
+            }
+        }
+        return ids;
+    }
+
+    private void executerLot(PreparedStatement ps, List<Long> ids) throws SQLException {
+        ps.executeBatch();
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Réserve des ID dans la séquence de la table, pour des écritures insérées plus tard avec leur ID
+     * (moteur de comptes en mémoire). Retourne un tableau vide en cas d'erreur.
+     */
+    public long[] reserverIds(int nombre) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return reserverIds(conn, nombre).stream().mapToLong(Long::longValue).toArray();
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de la réservation d'ID de transactions: " + e.getMessage());
+            return new long[0];
+        }
+    }
+
+    private List<Long> reserverIds(Connection conn, int nombre) throws SQLException {
+        List<Long> ids = new ArrayList<>(nombre);
+        try (PreparedStatement ps = conn.prepareStatement(RESERVER_IDS_TRANSACTION)) {
+            ps.setInt(1, nombre);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    // Insertion par COPY PostgreSQL : les ID sont réservés dans la séquence puis fournis explicitement
+    private List<Long> insererParCopy(Connection conn, Object copyManager, List<Transaction> transactions) throws SQLException {
+        List<Long> ids = reserverIds(conn, transactions.size());
+
+        for (int debutLot = 0; debutLot < transactions.size(); debutLot += TAILLE_LOT) {
+            int finLot = Math.min(debutLot + TAILLE_LOT, transactions.size());
+            StringBuilder lignes = new StringBuilder((finLot - debutLot) * 64);
+            for (int i = debutLot; i < finLot; i++) {
+                Transaction t = transactions.get(i);
+                lignes.append(ids.get(i)).append('\t')
+                        .append(t.date()).append('\t')
+                        .append(t.montant()).append('\t')
+                        .append(t.type().name()).append('\t')
+                        .append(t.lieu() == null ? "\\N" : echapperCopy(t.lieu())).append('\t')
+                        .append(t.idCompte()).append('\n');
+            }
+            try {
+                copyManager.getClass().getMethod("copyIn", String.class, Reader.class)
+                        .invoke(copyManager, COPY_TRANSACTION, new StringReader(lignes.toString()));
+            } catch (InvocationTargetException e) {
+                throw new SQLException("Échec du COPY: " + e.getCause().getMessage(), e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new SQLException("COPY indisponible: " + e.getMessage(), e);
+            }
+        }
+        return ids;
+    }
+
+    // Le pilote PostgreSQL n'est pas une dépendance de compilation : l'API COPY est obtenue par réflexion
+    private Optional<Object> trouverCopyManager(Connection conn) {
+        try {
+            Class<?> pgConnection = Class.forName("org.postgresql.PGConnection");
+            if (!conn.isWrapperFor(pgConnection)) {
+                return Optional.empty();
+            }
+            Object pg = conn.unwrap(pgConnection);
+            return Optional.of(pgConnection.getMethod("getCopyAPI").invoke(pg));
+        } catch (ReflectiveOperationException | SQLException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Échappement du format texte de COPY (antislash, tabulation, retours à la ligne)
+    private static String echapperCopy(String valeur) {
+        return valeur.replace("\\", "\\\\")
+                .replace("\t", "\\t")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r");
+    }
+
     // Utilisation d'Optional
     @Override
     public Optional<Transaction> findById(long id) {
@@ -96,18 +328,257 @@ public class TransactionDAOImpl implements TransactionDAO {
 
     @Override
     public List<Transaction> findAll() {
-        return findListByLongParameter(SELECT_ALL_TRANSACTIONS, null);
+        return TOUTES_LES_TRANSACTIONS.obtenir(() -> findListByLongParameter(SELECT_ALL_TRANSACTIONS, null));
+    }
+
+    @Override
+    public Page<Transaction> findPageByCompteId(long idCompte, String jeton, int taillePage) {
+        if (jeton == null) {
+            return findPageByQuery(SELECT_PAGE_BY_COMPTE, taillePage, ps -> {
+                ps.setLong(1, idCompte);
+                ps.setInt(2, taillePage + 1);
+            });
+        }
+        Transaction derniere = decoderJeton(jeton);
+        return findPageByQuery(SELECT_PAGE_BY_COMPTE_APRES, taillePage, ps -> {
+            ps.setLong(1, idCompte);
+            ps.setDate(2, Date.valueOf(derniere.date()));
+            ps.setLong(3, derniere.id());
+            ps.setInt(4, taillePage + 1);
+        });
+    }
+
+    @Override
+    public Page<Transaction> findPage(String jeton, int taillePage) {
+        if (jeton == null) {
+            return findPageByQuery(SELECT_PAGE, taillePage, ps -> ps.setInt(1, taillePage + 1));
+        }
+        Transaction derniere = decoderJeton(jeton);
+        return findPageByQuery(SELECT_PAGE_APRES, taillePage, ps -> {
+            ps.setDate(1, Date.valueOf(derniere.date()));
+            ps.setLong(2, derniere.id());
+            ps.setInt(3, taillePage + 1);
+        });
+    }
+
+    // Une ligne de plus que la taille de page est demandée pour savoir s'il existe une page suivante
+    private Page<Transaction> findPageByQuery(String sql, int taillePage, ParametresRequete parametres) {
+        if (taillePage <= 0) {
+            throw new IllegalArgumentException("La taille de page doit être positive.");
+        }
+        List<Transaction> transactions = findListByQuery(sql, parametres);
+        if (transactions.size() <= taillePage) {
+            return new Page<>(transactions, null);
+        }
+        List<Transaction> page = transactions.subList(0, taillePage);
+        return new Page<>(List.copyOf(page), encoderJeton(page.get(taillePage - 1)));
+    }
+
+    // Jeton de continuation : position (dateTrans, id) de la dernière ligne de la page
+    static String encoderJeton(Transaction derniere) {
+        return derniere.date() + ":" + derniere.id();
+    }
+
+    static Transaction decoderJeton(String jeton) {
+        int separateur = jeton.lastIndexOf(':');
+        try {
+            LocalDate date = LocalDate.parse(jeton.substring(0, separateur));
+            long id = Long.parseLong(jeton.substring(separateur + 1));
+            return new Transaction(id, date, 0, null, null, 0);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Jeton de pagination invalide : " + jeton, e);
+        }
+    }
+
+    @Override
+    public Stream<Transaction> streamAll() {
+        return streamByQuery(SELECT_ALL_TRANSACTIONS_CURSEUR, ps -> { });
+    }
+
+    /**
+     * Parcours par curseur des transactions d'ID supérieur à idExclu, par ID croissant (rattrapage d'une copie).
+     */
+    public void forEachApres(long idExclu, Consumer<? super Transaction> action) {
+        try (Stream<Transaction> transactions = streamByQuery(SELECT_TRANSACTIONS_APRES_ID_CURSEUR,
+                ps -> ps.setLong(1, idExclu))) {
+            transactions.forEach(action);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Transaction> action) {
+        try (Stream<Transaction> transactions = streamAll()) {
+            transactions.forEach(action);
+        }
+    }
+
+    // Ouvre un curseur "forward-only" : PostgreSQL ne rapatrie les lignes par paquets de TAILLE_FETCH
+    // que si l'autocommit est désactivé. Les ressources sont libérées à la fermeture du Stream.
+    private Stream<Transaction> streamByQuery(String sql, ParametresRequete parametres) {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(TAILLE_FETCH);
+            parametres.appliquer(ps);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de l'ouverture du curseur de transactions: " + e.getMessage());
+            fermerCurseur(null, ps, conn);
+            return Stream.empty();
+        }
+
+        Spliterator<Transaction> curseur = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Transaction> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapRowToTransaction(rs));
+                    return true;
+                } catch (SQLException e) {
+                    // Terminer le flux ferait passer un parcours interrompu pour un parcours complet
+                    throw new IllegalStateException("Erreur DAO lors de la lecture du curseur de transactions: "
+                            + e.getMessage(), e);
+                }
+            }
+        };
+
+        Connection connCurseur = conn;
+        PreparedStatement psCurseur = ps;
+        return StreamSupport.stream(curseur, false)
+                .onClose(() -> fermerCurseur(rs, psCurseur, connCurseur));
+    }
+
+    // Lecture seule : la transaction du curseur est simplement abandonnée à la fermeture de la connexion
+    private void fermerCurseur(ResultSet rs, Statement ps, Connection conn) {
+        try (conn; ps; rs) {
+            // Fermeture dans l'ordre inverse : rs, ps puis conn (les ressources null sont ignorées)
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de la fermeture du curseur de transactions: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Transaction> findByMontantMin(double montantMin) {
+        return findListByQuery(SELECT_TRANSACTION_BY_MONTANT_MIN, ps -> ps.setDouble(1, montantMin));
+    }
+
+    @Override
+    public List<Transaction> findByDateRange(LocalDate debut, LocalDate fin) {
+        return findListByQuery(SELECT_TRANSACTION_BY_DATES, ps -> {
+            ps.setDate(1, Date.valueOf(debut));
+            ps.setDate(2, Date.valueOf(fin));
+        });
+    }
+
+    @Override
+    public List<Transaction> findByCompteIdAndDateRange(long idCompte, LocalDate debut, LocalDate fin) {
+        return findListByQuery(SELECT_TRANSACTION_BY_COMPTE_ET_DATES, ps -> {
+            ps.setLong(1, idCompte);
+            ps.setDate(2, Date.valueOf(debut));
+            ps.setDate(3, Date.valueOf(fin));
+        });
+    }
+
+    @Override
+    public List<Transaction> findByLieu(String lieu) {
+        return findListByQuery(SELECT_TRANSACTION_BY_LIEU, ps -> ps.setString(1, motifContient(lieu)));
+    }
+
+    @Override
+    public List<Transaction> findByType(TypeTransaction type) {
+        return findListByQuery(SELECT_TRANSACTION_BY_TYPE, ps -> ps.setString(1, type.name()));
+    }
+
+    @Override
+    public List<Transaction> findSuspectes(double seuilMontant, String paysHabituel) {
+        return findListByQuery(SELECT_TRANSACTIONS_SUSPECTES, ps -> {
+            ps.setDouble(1, seuilMontant);
+            ps.setString(2, motifContient(paysHabituel));
+        });
+    }
+
+    @Override
+    public List<StatistiquesTransaction> aggregateByType(LocalDate debut, LocalDate fin) {
+        List<StatistiquesTransaction> statistiques = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(AGGREGATE_BY_TYPE)) {
+
+            ps.setDate(1, Date.valueOf(debut));
+            ps.setDate(2, Date.valueOf(fin));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    statistiques.add(mapRowToStatistiques(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de l'agrégation des transactions par type: " + e.getMessage());
+        }
+        return statistiques;
+    }
+
+    @Override
+    public NavigableMap<YearMonth, List<StatistiquesTransaction>> aggregateByMonthAndType(LocalDate debut, LocalDate fin) {
+        NavigableMap<YearMonth, List<StatistiquesTransaction>> parMois = new TreeMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(AGGREGATE_BY_MONTH_AND_TYPE)) {
+
+            ps.setDate(1, Date.valueOf(debut));
+            ps.setDate(2, Date.valueOf(fin));
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    YearMonth mois = YearMonth.from(rs.getDate("mois").toLocalDate());
+                    parMois.computeIfAbsent(mois, m -> new ArrayList<>()).add(mapRowToStatistiques(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO lors de l'agrégation mensuelle des transactions: " + e.getMessage());
+        }
+        return parMois;
+    }
+
+    private static StatistiquesTransaction mapRowToStatistiques(ResultSet rs) throws SQLException {
+        return new StatistiquesTransaction(
+                TypeTransaction.valueOf(rs.getString("type")),
+                rs.getLong("nombre"),
+                rs.getDouble("volumeTotal"),
+                rs.getDouble("montantMin"),
+                rs.getDouble("montantMax"),
+                rs.getDouble("montantMoyen")
+        );
+    }
+
+    // Motif ILIKE "contient" : les caractères spéciaux de LIKE saisis par l'utilisateur sont échappés
+    private static String motifContient(String texte) {
+        String echappe = texte.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + echappe + "%";
     }
 
     // Méthode générique interne pour réutiliser le code de recherche de listes
     private List<Transaction> findListByLongParameter(String sql, Long parameter) {
+        return findListByQuery(sql, ps -> {
+            if (parameter != null) {
+                ps.setLong(1, parameter);
+            }
+        });
+    }
+
+    private List<Transaction> findListByQuery(String sql, ParametresRequete parametres) {
         List<Transaction> transactions = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
-            if (parameter != null) {
-                ps.setLong(1, parameter);
-            }
+            parametres.appliquer(ps);
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
@@ -130,6 +601,7 @@ public class TransactionDAOImpl implements TransactionDAO {
 
             ps.setLong(1, id);
             ps.executeUpdate();
+            ResultatsVersionnes.signalerEcriture();
 
         } catch (SQLException e) {
             System.err.println("Erreur DAO lors de la suppression de la transaction: " + e.getMessage());
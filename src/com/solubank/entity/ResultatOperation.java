@@ -0,0 +1,16 @@
+package entity;
+
+import java.util.List;
+import java.util.Map;
+
+// Issue d'une opération bancaire : écritures enregistrées au journal et nouveaux soldes par ID de compte
+public record ResultatOperation(StatutOperation statut, List<Transaction> ecritures, Map<Long, Double> nouveauxSoldes) {
+
+    public static ResultatOperation echec(StatutOperation statut) {
+        return new ResultatOperation(statut, List.of(), Map.of());
+    }
+
+    public boolean estReussie() {
+        return statut == StatutOperation.SUCCES;
+    }
+}
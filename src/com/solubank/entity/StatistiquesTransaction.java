@@ -0,0 +1,6 @@
+package entity;
+
+// Agrégats d'un type de transaction sur une période (calculés par la base de données)
+public record StatistiquesTransaction(TypeTransaction type, long nombre, double volumeTotal,
+                                      double montantMin, double montantMax, double montantMoyen) {
+}
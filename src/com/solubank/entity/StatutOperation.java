@@ -0,0 +1,8 @@
+package entity;
+
+public enum StatutOperation {
+    SUCCES,
+    COMPTE_INTROUVABLE,
+    SOLDE_INSUFFISANT,
+    ERREUR
+}
@@ -0,0 +1,762 @@
+package service;
+
+import dao.CompteDAO;
+import dao.OperationDAO;
+import dao.TransactionDAOImpl;
+import entity.Compte;
+import entity.CompteCourant;
+import entity.CompteEpargne;
+import entity.ResultatOperation;
+import entity.StatutOperation;
+import entity.Transaction;
+import entity.TypeTransaction;
+import util.Montant;
+import util.SoldeAtomique;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Moteur de comptes en mémoire : soldes et plafonds de tous les comptes sont tenus en mémoire,
+ * chaque modification est d'abord ajoutée au journal d'écriture anticipée (WAL) puis appliquée.
+ * Au démarrage, l'état est restauré depuis le dernier instantané et la fin du WAL est rejouée
+ * (sans requête à la base). Un point de contrôle périodique reporte dans PostgreSQL, en une seule
+ * transaction, les soldes modifiés et les écritures au journal des transactions, puis écrit un nouvel
+ * instantané et purge le WAL.
+ * <p>
+ * Chaque opération réserve l'ID de ses écritures dans la séquence de la table Transaction (par blocs)
+ * et les inscrit dans le même enregistrement du WAL que le mouvement de solde : solde et écritures
+ * sont rejoués ensemble et n'atteignent la base qu'ensemble, au point de contrôle.
+ * <p>
+ * Verrouillage par bandes : chaque compte est protégé par l'une des bandes de verrous (choisie d'après son id).
+ * Une opération tient la bande de son compte (les deux bandes d'un virement, prises par indice croissant)
+ * le temps du contrôle, de l'ajout au WAL et de l'application : l'ordre des enregistrements d'un compte dans
+ * le WAL est celui de leur application. Le fsync du WAL est fait après avoir rendu la bande, en validation
+ * groupée (WriteAheadLog.rendreDurable), et l'opération n'est confirmée qu'une fois durable : les opérations
+ * sur des comptes différents ne se sérialisent que sur l'écriture (brève) dans le fichier du WAL.
+ * Le point de contrôle et la suppression en cascade d'un client prennent toutes les bandes.
+ * Les lectures (trouver, comptes) ne prennent aucun verrou.
+ */
+public class AccountEngine implements OperationDAO, AutoCloseable {
+
+    private static final String FICHIER_INSTANTANE = "comptes.snapshot";
+    private static final int MAGIC_INSTANTANE = 0x534F4C55; // "SOLU"
+    private static final int VERSION_INSTANTANE = 1;
+
+    // État d'un compte : solde et limites modifiés sous la bande du compte et lus sans verrou
+    static final class EtatCompte {
+        private final long id;
+        private final String numero;
+        private final long idClient;
+        private final boolean courant;
+        private final SoldeAtomique solde;
+        private volatile double decouvertAutorise;
+        private volatile double tauxInteret;
+
+        // Plancher : mêmes règles que CompteCourant/CompteEpargne.debiter
+        private EtatCompte(long id, String numero, long idClient, boolean courant,
+                           double solde, double decouvertAutorise, double tauxInteret) {
+            this.id = id;
+            this.numero = numero;
+            this.idClient = idClient;
+            this.courant = courant;
+            this.solde = new SoldeAtomique(Montant.versCentimes(solde),
+                    courant ? -Montant.versCentimes(decouvertAutorise) : 0);
+            this.decouvertAutorise = decouvertAutorise;
+            this.tauxInteret = tauxInteret;
+        }
+
+        // Le solde en cours est conservé ; seul le plancher des débits suivants change
+        private void modifierLimites(double decouvertAutorise, double tauxInteret) {
+            this.decouvertAutorise = decouvertAutorise;
+            this.tauxInteret = tauxInteret;
+            solde.definirPlancher(courant ? -Montant.versCentimes(decouvertAutorise) : 0);
+        }
+
+        private static EtatCompte de(Compte compte) {
+            if (compte instanceof CompteCourant cc) {
+                return new EtatCompte(cc.getId(), cc.getNumero(), cc.getIdClient(), true,
+                        cc.getSolde(), cc.getDecouvertAutorise(), 0.0);
+            }
+            CompteEpargne ce = (CompteEpargne) compte;
+            return new EtatCompte(ce.getId(), ce.getNumero(), ce.getIdClient(), false,
+                    ce.getSolde(), 0.0, ce.getTauxInteret());
+        }
+
+        private double soldeEnDh() {
+            return Montant.versMontant(solde.centimes());
+        }
+
+        private Compte versCompte() {
+            return courant
+                    ? new CompteCourant(id, numero, soldeEnDh(), idClient, decouvertAutorise)
+                    : new CompteEpargne(id, numero, soldeEnDh(), idClient, tauxInteret);
+        }
+
+        private EtatCompte copie() {
+            return new EtatCompte(id, numero, idClient, courant, soldeEnDh(), decouvertAutorise, tauxInteret);
+        }
+
+        private void ecrire(DataOutputStream out) throws IOException {
+            out.writeLong(id);
+            out.writeUTF(numero);
+            out.writeLong(idClient);
+            out.writeBoolean(courant);
+            out.writeDouble(soldeEnDh());
+            out.writeDouble(decouvertAutorise);
+            out.writeDouble(tauxInteret);
+        }
+
+        private static EtatCompte lire(DataInputStream in) throws IOException {
+            return new EtatCompte(in.readLong(), in.readUTF(), in.readLong(), in.readBoolean(),
+                    in.readDouble(), in.readDouble(), in.readDouble());
+        }
+    }
+
+    // ID de transactions réservés par aller-retour à la base
+    private static final int TAILLE_RESERVATION_IDS = 256;
+
+    private final Path repertoire;
+    private final CompteDAO compteDAO;
+    private final TransactionDAOImpl transactionsBase;
+    private final WriteAheadLog wal;
+
+    private final ReentrantLock[] bandes;
+    private final Map<Long, EtatCompte> comptes = new ConcurrentHashMap<>();
+    // Comptes dont le solde a changé depuis le dernier report dans la base (remplacé sous toutes les bandes)
+    private Set<Long> comptesAReporter = ConcurrentHashMap.newKeySet();
+    // Écritures journalisées dans le WAL, à insérer dans la base au prochain point de contrôle (idem)
+    private volatile Queue<Transaction> ecrituresAReporter = new ConcurrentLinkedQueue<>();
+    // Un fsync du WAL a échoué : des opérations appliquées en mémoire ne sont peut-être pas durables
+    private volatile boolean walEnEchec;
+
+    private final Object verrouIds = new Object();
+    private long[] idsReserves = new long[0];
+    private int prochainIdReserve;
+
+    private final ScheduledExecutorService pointsDeControle;
+
+    // Bilan de la restauration, affiché par l'appelant
+    private long operationsRejouees;
+    private long dureeRestaurationNanos;
+
+    private AccountEngine(Path repertoire, boolean synchroniserWal, int nombreDeBandes,
+                          CompteDAO compteDAO, TransactionDAOImpl transactionsBase) {
+        this.repertoire = repertoire;
+        this.compteDAO = compteDAO;
+        this.transactionsBase = transactionsBase;
+        this.wal = new WriteAheadLog(repertoire, synchroniserWal);
+        // Puissance de deux pour choisir la bande par masque
+        int taille = Integer.highestOneBit(Math.max(1, Math.min(nombreDeBandes, 1 << 16)) * 2 - 1);
+        this.bandes = new ReentrantLock[taille];
+        for (int i = 0; i < taille; i++) {
+            bandes[i] = new ReentrantLock();
+        }
+        this.pointsDeControle = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "moteur-point-de-controle");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Restaure le moteur (instantané + rejeu du WAL) et planifie les points de contrôle.
+     * Au tout premier démarrage (sans instantané), les comptes sont chargés depuis la base.
+     * nombreDeBandes est arrondi à la puissance de deux supérieure ; transactionsBase réserve les ID des écritures.
+     */
+    public static AccountEngine demarrer(Path repertoire, boolean synchroniserWal, long intervalleSecondes,
+                                         int nombreDeBandes, CompteDAO compteDAO, TransactionDAOImpl transactionsBase) {
+        AccountEngine moteur = new AccountEngine(repertoire, synchroniserWal, nombreDeBandes, compteDAO, transactionsBase);
+        try {
+            moteur.restaurer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Restauration du moteur de comptes impossible : " + repertoire, e);
+        }
+        long periode = Math.max(1, intervalleSecondes);
+        moteur.pointsDeControle.scheduleWithFixedDelay(moteur::pointDeControleSilencieux, periode, periode, TimeUnit.SECONDS);
+        return moteur;
+    }
+
+    private void restaurer() throws IOException {
+        long debut = System.nanoTime();
+        Path instantane = repertoire.resolve(FICHIER_INSTANTANE);
+        long sequence;
+        boolean initialisation = !Files.exists(instantane);
+        if (initialisation) {
+            // Un WAL sans son instantané de départ ne peut pas être rejoué sur l'état de la base
+            wal.purgerAnciensFichiers();
+            compteDAO.findAll().forEach(compte -> comptes.put(compte.getId(), EtatCompte.de(compte)));
+            sequence = 0;
+        } else {
+            sequence = lireInstantane(instantane);
+        }
+        operationsRejouees = wal.rejouer(sequence, this::rejouer);
+        if (initialisation) {
+            pointDeControle();
+        }
+        dureeRestaurationNanos = System.nanoTime() - debut;
+    }
+
+    public int nombreDeComptes() {
+        return comptes.size();
+    }
+
+    public long operationsRejouees() {
+        return operationsRejouees;
+    }
+
+    public long dureeRestaurationNanos() {
+        return dureeRestaurationNanos;
+    }
+
+    // --- Opérations bancaires (même contrat que OperationDAOImpl) ---
+
+    @Override
+    public ResultatOperation retrait(long idCompte, double montant, String lieu, LocalDate date) {
+        if (!montantAccepte(montant)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        return mouvement(idCompte, -Montant.versCentimes(montant), lieu, date);
+    }
+
+    @Override
+    public ResultatOperation versement(long idCompte, double montant, String lieu, LocalDate date) {
+        if (!montantAccepte(montant)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        return mouvement(idCompte, Montant.versCentimes(montant), lieu, date);
+    }
+
+    @Override
+    public ResultatOperation virement(long idCompteSource, long idCompteDest, double montant, LocalDate date) {
+        if (idCompteSource == idCompteDest || !montantAccepte(montant)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        if (walEnEchec) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        long idSortie = reserverIdEcriture();
+        long idEntree = idSortie == 0 ? 0 : reserverIdEcriture();
+        if (idEntree == 0) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        long centimes = Montant.versCentimes(montant);
+        List<Transaction> ecritures = ecrituresVirement(idSortie, idEntree, date, idCompteSource, idCompteDest, centimes);
+        Map<Long, Double> nouveauxSoldes = new LinkedHashMap<>();
+        long sequence;
+        // Bandes prises par indice croissant : deux virements croisés ne peuvent pas s'attendre mutuellement
+        Lock premiere = bandes[Math.min(indiceBande(idCompteSource), indiceBande(idCompteDest))];
+        Lock seconde = bandes[Math.max(indiceBande(idCompteSource), indiceBande(idCompteDest))];
+        premiere.lock();
+        seconde.lock(); // Réentrant : même bande possible
+        try {
+            EtatCompte source = comptes.get(idCompteSource);
+            EtatCompte destination = comptes.get(idCompteDest);
+            if (source == null || destination == null) {
+                return ResultatOperation.echec(StatutOperation.COMPTE_INTROUVABLE);
+            }
+            long soldeSource = source.solde.debiter(centimes);
+            if (soldeSource == SoldeAtomique.REFUSE) {
+                return ResultatOperation.echec(StatutOperation.SOLDE_INSUFFISANT);
+            }
+            try {
+                // Un seul enregistrement : le virement et ses deux écritures sont rejoués entièrement ou pas du tout
+                sequence = wal.ajouter(WriteAheadLog.VIREMENT, out -> {
+                    out.writeLong(idCompteSource);
+                    out.writeLong(idCompteDest);
+                    out.writeDouble(Montant.versMontant(centimes));
+                    out.writeLong(idSortie);
+                    out.writeLong(idEntree);
+                    out.writeLong(date.toEpochDay());
+                });
+            } catch (IOException e) {
+                source.solde.crediter(centimes); // Annule le débit
+                System.err.println("Moteur : écriture du WAL impossible, virement annulé : " + e.getMessage());
+                return ResultatOperation.echec(StatutOperation.ERREUR);
+            }
+            long soldeDestination = destination.solde.crediter(centimes);
+            nouveauxSoldes.put(idCompteSource, marquerSolde(source, soldeSource));
+            nouveauxSoldes.put(idCompteDest, marquerSolde(destination, soldeDestination));
+            ecrituresAReporter.addAll(ecritures);
+        } finally {
+            seconde.unlock();
+            premiere.unlock();
+        }
+        if (!confirmer(sequence)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        return new ResultatOperation(StatutOperation.SUCCES, ecritures, nouveauxSoldes);
+    }
+
+    // Même règle que CompteService : un montant qui n'est pas un nombre entier de centimes (ou qui s'arrondirait
+    // à zéro) est refusé plutôt qu'arrondi en silence
+    private static boolean montantAccepte(double montant) {
+        return montant > 0 && Montant.estEnCentimes(montant) && Montant.versCentimes(montant) > 0;
+    }
+
+    // delta en centimes : négatif pour un retrait
+    private ResultatOperation mouvement(long idCompte, long delta, String lieu, LocalDate date) {
+        if (walEnEchec) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        long idEcriture = reserverIdEcriture();
+        if (idEcriture == 0) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        Transaction ecriture = ecritureMouvement(idEcriture, date, idCompte, delta, lieu);
+        double nouveauSolde;
+        long sequence;
+        Lock bande = bandes[indiceBande(idCompte)];
+        bande.lock();
+        try {
+            EtatCompte etat = comptes.get(idCompte);
+            if (etat == null) {
+                return ResultatOperation.echec(StatutOperation.COMPTE_INTROUVABLE);
+            }
+            long solde;
+            if (delta < 0) {
+                // Contrôle du plancher et débit en une seule étape, annulé si le WAL refuse l'enregistrement
+                solde = etat.solde.debiter(-delta);
+                if (solde == SoldeAtomique.REFUSE) {
+                    return ResultatOperation.echec(StatutOperation.SOLDE_INSUFFISANT);
+                }
+                try {
+                    sequence = journaliserMouvement(delta, ecriture);
+                } catch (IOException e) {
+                    etat.solde.crediter(-delta);
+                    throw e;
+                }
+            } else {
+                sequence = journaliserMouvement(delta, ecriture);
+                solde = etat.solde.crediter(delta);
+            }
+            nouveauSolde = marquerSolde(etat, solde);
+            ecrituresAReporter.add(ecriture);
+        } catch (IOException e) {
+            System.err.println("Moteur : écriture du WAL impossible, opération annulée : " + e.getMessage());
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        } finally {
+            bande.unlock();
+        }
+        if (!confirmer(sequence)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        return new ResultatOperation(StatutOperation.SUCCES, List.of(ecriture), Map.of(idCompte, nouveauSolde));
+    }
+
+    private long journaliserMouvement(long delta, Transaction ecriture) throws IOException {
+        return wal.ajouter(WriteAheadLog.MOUVEMENT, out -> {
+            out.writeLong(ecriture.idCompte());
+            out.writeDouble(Montant.versMontant(delta));
+            out.writeLong(ecriture.id());
+            out.writeLong(ecriture.date().toEpochDay());
+            out.writeBoolean(ecriture.lieu() != null);
+            if (ecriture.lieu() != null) {
+                out.writeUTF(ecriture.lieu());
+            }
+        });
+    }
+
+    // Écritures reconstruites à l'identique au rejeu du WAL
+    private static Transaction ecritureMouvement(long id, LocalDate date, long idCompte, long delta, String lieu) {
+        return new Transaction(id, date, Montant.versMontant(Math.abs(delta)),
+                delta < 0 ? TypeTransaction.RETRAIT : TypeTransaction.VERSEMENT, lieu, idCompte);
+    }
+
+    private static List<Transaction> ecrituresVirement(long idSortie, long idEntree, LocalDate date,
+                                                       long idCompteSource, long idCompteDest, long centimes) {
+        double montant = Montant.versMontant(centimes);
+        return List.of(
+                new Transaction(idSortie, date, montant, TypeTransaction.RETRAIT,
+                        "Virement sortant vers Compte ID " + idCompteDest, idCompteSource),
+                new Transaction(idEntree, date, montant, TypeTransaction.VERSEMENT,
+                        "Virement entrant de Compte ID " + idCompteSource, idCompteDest));
+    }
+
+    // Retourne 0 si la base ne peut pas fournir d'ID : l'opération est alors refusée avant toute modification
+    private long reserverIdEcriture() {
+        synchronized (verrouIds) {
+            if (prochainIdReserve == idsReserves.length) {
+                long[] ids = transactionsBase.reserverIds(TAILLE_RESERVATION_IDS);
+                if (ids.length == 0) {
+                    return 0;
+                }
+                idsReserves = ids;
+                prochainIdReserve = 0;
+            }
+            return idsReserves[prochainIdReserve++];
+        }
+    }
+
+    // Hors de toute bande : les autres opérations continuent pendant le fsync groupé.
+    // Un échec laisse l'opération appliquée en mémoire mais pas durable : le moteur refuse alors toute opération.
+    private void rendreDurable(long sequence) throws IOException {
+        try {
+            wal.rendreDurable(sequence);
+        } catch (IOException e) {
+            walEnEchec = true;
+            throw e;
+        }
+    }
+
+    private boolean confirmer(long sequence) {
+        try {
+            rendreDurable(sequence);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Moteur : synchronisation du WAL impossible, opérations suspendues : " + e.getMessage());
+            return false;
+        }
+    }
+
+    private int indiceBande(long idCompte) {
+        long h = idCompte * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (bandes.length - 1);
+    }
+
+    // Toutes les bandes, par indice croissant (même ordre que les virements)
+    private void verrouillerTout() {
+        for (ReentrantLock bande : bandes) {
+            bande.lock();
+        }
+    }
+
+    private void deverrouillerTout() {
+        for (int i = bandes.length - 1; i >= 0; i--) {
+            bandes[i].unlock();
+        }
+    }
+
+    // Appelé sous la bande du compte : le solde reporté sera relu au point de contrôle
+    private double marquerSolde(EtatCompte etat, long solde) {
+        comptesAReporter.add(etat.id);
+        return Montant.versMontant(solde);
+    }
+
+    // --- Comptes (appelés par les services) ---
+    // Lèvent UncheckedIOException si la modification n'a pas pu être journalisée (elle n'est alors pas appliquée)
+
+    public void enregistrer(Compte compte) {
+        EtatCompte etat = EtatCompte.de(compte);
+        ecrireEtAppliquer(bandes[indiceBande(etat.id)],
+                WriteAheadLog.COMPTE, etat::ecrire, () -> comptes.put(etat.id, etat));
+    }
+
+    public void supprimer(long idCompte) {
+        ecrireEtAppliquer(bandes[indiceBande(idCompte)],
+                WriteAheadLog.SUPPRESSION, out -> out.writeLong(idCompte), () -> retirer(idCompte));
+    }
+
+    public void supprimerParClient(long idClient) {
+        // Touche des comptes de bandes quelconques : exclusion de toutes les opérations
+        ecrireEtAppliquer(null,
+                WriteAheadLog.SUPPRESSION_CLIENT, out -> out.writeLong(idClient), () -> retirerParClient(idClient));
+    }
+
+    /**
+     * Modifie le découvert autorisé (compte courant) ou le taux d'intérêt (compte épargne) sans toucher au solde :
+     * les opérations en cours sur le compte ne sont pas écrasées.
+     */
+    public void modifierLimites(long idCompte, double decouvertAutorise, double tauxInteret) {
+        ecrireEtAppliquer(bandes[indiceBande(idCompte)], WriteAheadLog.LIMITES, out -> {
+            out.writeLong(idCompte);
+            out.writeDouble(decouvertAutorise);
+            out.writeDouble(tauxInteret);
+        }, () -> appliquerLimites(idCompte, decouvertAutorise, tauxInteret));
+    }
+
+    // Lectures sans verrou : chaque solde lu est une valeur effectivement atteinte par le compte,
+    // mais deux comptes lus peuvent être pris de part et d'autre d'un virement en cours
+    public Optional<Compte> trouver(long idCompte) {
+        return Optional.ofNullable(comptes.get(idCompte)).map(EtatCompte::versCompte);
+    }
+
+    public List<Compte> comptes() {
+        return comptes.values().stream().map(EtatCompte::versCompte).toList();
+    }
+
+    public List<Compte> comptesDuClient(long idClient) {
+        return comptes.values().stream()
+                .filter(etat -> etat.idClient == idClient)
+                .map(EtatCompte::versCompte)
+                .toList();
+    }
+
+    /**
+     * Comptes ayant une écriture datée du seuil ou après, parmi celles pas encore reportées dans la base.
+     */
+    public Set<Long> comptesMouvementesDepuis(LocalDate seuil) {
+        Set<Long> ids = new HashSet<>();
+        ecrituresAReporter.forEach(ecriture -> {
+            if (!ecriture.date().isBefore(seuil)) {
+                ids.add(ecriture.idCompte());
+            }
+        });
+        return ids;
+    }
+
+    // Sous la bande du compte (toutes les bandes si bande est null) : l'ordre dans le WAL est celui des opérations
+    private void ecrireEtAppliquer(Lock bande, byte type, WriteAheadLog.Contenu contenu, Runnable application) {
+        if (walEnEchec) {
+            throw new UncheckedIOException(new IOException("WAL en échec, modification refusée"));
+        }
+        long sequence;
+        if (bande != null) {
+            bande.lock();
+        } else {
+            verrouillerTout();
+        }
+        try {
+            sequence = wal.ajouter(type, contenu);
+            application.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture du WAL impossible", e);
+        } finally {
+            if (bande != null) {
+                bande.unlock();
+            } else {
+                deverrouillerTout();
+            }
+        }
+        try {
+            rendreDurable(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Synchronisation du WAL impossible", e);
+        }
+    }
+
+    // Les écritures du compte ne doivent plus être insérées : la base supprime ses transactions en cascade
+    private void retirer(long idCompte) {
+        comptes.remove(idCompte);
+        comptesAReporter.remove(idCompte);
+        ecrituresAReporter.removeIf(ecriture -> ecriture.idCompte() == idCompte);
+    }
+
+    private void appliquerLimites(long idCompte, double decouvertAutorise, double tauxInteret) {
+        EtatCompte etat = comptes.get(idCompte);
+        if (etat != null) {
+            etat.modifierLimites(decouvertAutorise, tauxInteret);
+        }
+    }
+
+    private void retirerParClient(long idClient) {
+        comptes.values().stream()
+                .filter(etat -> etat.idClient == idClient)
+                .map(etat -> etat.id)
+                .toList()
+                .forEach(this::retirer);
+    }
+
+    // --- Rejeu du WAL (au démarrage, avant toute opération) ---
+
+    private void rejouer(long sequence, byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case WriteAheadLog.COMPTE -> {
+                EtatCompte etat = EtatCompte.lire(in);
+                comptes.put(etat.id, etat);
+            }
+            case WriteAheadLog.SUPPRESSION -> retirer(in.readLong());
+            case WriteAheadLog.SUPPRESSION_CLIENT -> retirerParClient(in.readLong());
+            case WriteAheadLog.LIMITES -> appliquerLimites(in.readLong(), in.readDouble(), in.readDouble());
+            // Déjà acceptés : appliqués sans contrôle du plancher, écritures de nouveau à reporter
+            // (celles déjà insérées avant l'arrêt sont ignorées par la base)
+            case WriteAheadLog.MOUVEMENT -> {
+                long idCompte = in.readLong();
+                long delta = Montant.versCentimes(in.readDouble());
+                long idEcriture = in.readLong();
+                LocalDate date = LocalDate.ofEpochDay(in.readLong());
+                String lieu = in.readBoolean() ? in.readUTF() : null;
+                EtatCompte etat = comptes.get(idCompte);
+                if (etat != null) {
+                    marquerSolde(etat, etat.solde.crediter(delta));
+                    ecrituresAReporter.add(ecritureMouvement(idEcriture, date, idCompte, delta, lieu));
+                }
+            }
+            case WriteAheadLog.VIREMENT -> {
+                long idCompteSource = in.readLong();
+                long idCompteDest = in.readLong();
+                double montant = in.readDouble();
+                long idSortie = in.readLong();
+                long idEntree = in.readLong();
+                LocalDate date = LocalDate.ofEpochDay(in.readLong());
+                EtatCompte source = comptes.get(idCompteSource);
+                EtatCompte destination = comptes.get(idCompteDest);
+                long centimes = Montant.versCentimes(montant);
+                if (source != null && destination != null) {
+                    marquerSolde(source, source.solde.crediter(-centimes));
+                    marquerSolde(destination, destination.solde.crediter(centimes));
+                    ecrituresAReporter.addAll(
+                            ecrituresVirement(idSortie, idEntree, date, idCompteSource, idCompteDest, centimes));
+                }
+            }
+            default -> throw new IOException("Type d'enregistrement WAL inconnu : " + type + " (séquence " + sequence + ")");
+        }
+    }
+
+    // --- Points de contrôle ---
+
+    /**
+     * Reporte dans la base les soldes modifiés et les écritures en attente, puis écrit un instantané cohérent
+     * de tous les comptes et supprime le WAL qu'il couvre. Si le report échoue, rien n'est purgé et
+     * le point de contrôle suivant reprendra les mêmes soldes et écritures.
+     */
+    public void pointDeControle() throws IOException {
+        List<EtatCompte> copie;
+        Set<Long> modifies;
+        Queue<Transaction> ecritures;
+        long sequence;
+        verrouillerTout();
+        try {
+            // Les opérations suivantes iront dans un nouveau fichier WAL, après l'instantané
+            sequence = wal.basculer();
+            copie = comptes.values().stream().map(EtatCompte::copie).toList();
+            modifies = comptesAReporter;
+            comptesAReporter = ConcurrentHashMap.newKeySet();
+            ecritures = ecrituresAReporter;
+            ecrituresAReporter = new ConcurrentLinkedQueue<>();
+        } finally {
+            deverrouillerTout();
+        }
+        Map<Long, Double> aReporter = new LinkedHashMap<>();
+        copie.stream()
+                .filter(etat -> modifies.contains(etat.id))
+                .forEach(etat -> aReporter.put(etat.id, etat.soldeEnDh()));
+        try {
+            compteDAO.updateSoldes(aReporter, ecritures);
+        } catch (SQLException e) {
+            remettreAReporter(modifies, ecritures);
+            throw new IOException("Report dans la base impossible : " + e.getMessage(), e);
+        }
+        ecrireInstantane(copie, sequence);
+        wal.purgerAnciensFichiers();
+    }
+
+    // Sauf les comptes supprimés entre-temps, dont les écritures seraient refusées par la base
+    private void remettreAReporter(Set<Long> modifies, Queue<Transaction> ecritures) {
+        verrouillerTout();
+        try {
+            modifies.stream().filter(comptes::containsKey).forEach(comptesAReporter::add);
+            ecritures.stream().filter(ecriture -> comptes.containsKey(ecriture.idCompte())).forEach(ecrituresAReporter::add);
+        } finally {
+            deverrouillerTout();
+        }
+    }
+
+    private void pointDeControleSilencieux() {
+        try {
+            pointDeControle();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Moteur : échec du point de contrôle : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Arrête les points de contrôle périodiques, attend celui en cours puis en effectue un dernier.
+     */
+    @Override
+    public void close() {
+        pointsDeControle.shutdown();
+        try {
+            if (!pointsDeControle.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Deux points de contrôle écriraient le même instantané : le WAL conservé suffit au redémarrage
+                System.err.println("Moteur : point de contrôle en cours non terminé, point de contrôle final annulé.");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            pointDeControle();
+        } catch (IOException e) {
+            System.err.println("Moteur : échec du point de contrôle final : " + e.getMessage());
+        }
+        // Même après un échec : le WAL forcé sur disque sera rejoué au prochain démarrage
+        try {
+            wal.close();
+        } catch (IOException e) {
+            System.err.println("Moteur : fermeture du WAL impossible : " + e.getMessage());
+        }
+    }
+
+    // --- Instantané : [magic][version][séquence][nombre][comptes...][CRC32] ---
+
+    private void ecrireInstantane(List<EtatCompte> etats, long sequence) throws IOException {
+        Files.createDirectories(repertoire);
+        Path temporaire = repertoire.resolve(FICHIER_INSTANTANE + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream fichier = Files.newOutputStream(temporaire);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fichier, crc)))) {
+            out.writeInt(MAGIC_INSTANTANE);
+            out.writeInt(VERSION_INSTANTANE);
+            out.writeLong(sequence);
+            out.writeInt(etats.size());
+            for (EtatCompte etat : etats) {
+                etat.ecrire(out);
+            }
+            out.flush();
+            new DataOutputStream(fichier).writeLong(crc.getValue());
+        }
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        // Remplacement atomique : un arrêt brutal laisse l'ancien ou le nouvel instantané, jamais un mélange
+        Files.move(temporaire, repertoire.resolve(FICHIER_INSTANTANE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Retourne la séquence couverte par l'instantané
+    private long lireInstantane(Path instantane) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream fichier = new BufferedInputStream(Files.newInputStream(instantane))) {
+            DataInputStream in = new DataInputStream(new CheckedInputStream(fichier, crc));
+            if (in.readInt() != MAGIC_INSTANTANE || in.readInt() != VERSION_INSTANTANE) {
+                throw new IOException("Format d'instantané inconnu : " + instantane);
+            }
+            long sequence = in.readLong();
+            int nombre = in.readInt();
+            Map<Long, EtatCompte> lus = new HashMap<>(nombre * 2);
+            for (int i = 0; i < nombre; i++) {
+                EtatCompte etat = EtatCompte.lire(in);
+                lus.put(etat.id, etat);
+            }
+            long crcCalcule = crc.getValue();
+            if (new DataInputStream(fichier).readLong() != crcCalcule) {
+                throw new IOException("Instantané corrompu (CRC invalide) : " + instantane);
+            }
+            comptes.putAll(lus);
+            return sequence;
+        }
+    }
+}
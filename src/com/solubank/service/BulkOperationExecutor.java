@@ -0,0 +1,226 @@
+package service;
+
+import entity.ResultatOperation;
+import entity.StatutOperation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Exécution en masse d'un fichier d'opérations (versements, retraits, virements) à travers CompteService.
+ * Chaque opération passe l'essentiel de son temps à attendre la base : elles sont soumises à des threads
+ * virtuels (Java 21+, obtenus par réflexion) ou, à défaut, à un pool de threads classiques.
+ * Un sémaphore borne le nombre d'opérations en vol à la taille du pool de connexions, pour occuper toutes
+ * les connexions sans faire attendre les threads dans ConnectionPool.
+ * <p>
+ * Les opérations d'un même compte s'exécutent dans l'ordre du fichier : chacune attend la fin des opérations
+ * précédentes de son compte (des deux comptes pour un virement), de sorte qu'un retrait financé par un versement
+ * précédent du fichier est accepté à chaque rejeu. Les opérations de comptes différents s'exécutent en parallèle.
+ * <p>
+ * Format du fichier (une opération par ligne, séparateur ';', lignes vides et commençant par # ignorées) :
+ * <pre>
+ * VERSEMENT;idCompte;montant;lieu
+ * RETRAIT;idCompte;montant;lieu
+ * VIREMENT;idCompteSource;idCompteDest;montant
+ * </pre>
+ */
+public class BulkOperationExecutor {
+
+    public enum TypeOperation { VERSEMENT, RETRAIT, VIREMENT }
+
+    /**
+     * Une ligne du fichier ; idCompteDest vaut 0 hors virement.
+     */
+    public record Operation(int ligne, TypeOperation type, long idCompte, long idCompteDest, double montant, String lieu) {
+
+        public static Operation lire(int ligne, String texte) {
+            String[] champs = texte.split(";", -1);
+            if (champs.length != 4) {
+                throw new IllegalArgumentException("4 champs attendus, " + champs.length + " trouvés");
+            }
+            TypeOperation type = TypeOperation.valueOf(champs[0].trim().toUpperCase(Locale.ROOT));
+            long idCompte = Long.parseLong(champs[1].trim());
+            return type == TypeOperation.VIREMENT
+                    ? new Operation(ligne, type, idCompte, Long.parseLong(champs[2].trim()), lireMontant(champs[3]), null)
+                    : new Operation(ligne, type, idCompte, 0, lireMontant(champs[2]), champs[3].trim());
+        }
+
+        // Accepte la virgule décimale (fichiers exportés en locale française)
+        private static double lireMontant(String champ) {
+            return Double.parseDouble(champ.trim().replace(',', '.'));
+        }
+    }
+
+    public record Resultat(Operation operation, StatutOperation statut, long dureeNanos) {
+    }
+
+    /**
+     * Résultats (dans l'ordre du fichier), débit et percentiles de latence du lot.
+     */
+    public record Rapport(List<Resultat> resultats, List<String> lignesRejetees, long dureeTotaleNanos,
+                          int concurrence, boolean threadsVirtuels) {
+
+        public Map<StatutOperation, Integer> parStatut() {
+            Map<StatutOperation, Integer> compteurs = new EnumMap<>(StatutOperation.class);
+            resultats.forEach(r -> compteurs.merge(r.statut(), 1, Integer::sum));
+            return compteurs;
+        }
+
+        public double operationsParSeconde() {
+            return dureeTotaleNanos == 0 ? 0.0 : resultats.size() * 1_000_000_000.0 / dureeTotaleNanos;
+        }
+
+        /**
+         * Latence (en millisecondes) au percentile demandé, par la méthode du rang le plus proche.
+         */
+        public double percentileMillis(double percentile) {
+            if (resultats.isEmpty()) {
+                return 0.0;
+            }
+            long[] durees = resultats.stream().mapToLong(Resultat::dureeNanos).toArray();
+            Arrays.sort(durees);
+            int rang = (int) Math.ceil(percentile / 100.0 * durees.length);
+            return durees[Math.max(0, Math.min(durees.length, rang) - 1)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d opérations en %.3f s (%.1f op/s, %d en parallèle, %s) | p50=%.2f ms p95=%.2f ms p99=%.2f ms | %s%s",
+                    resultats.size(), dureeTotaleNanos / 1_000_000_000.0, operationsParSeconde(), concurrence,
+                    threadsVirtuels ? "threads virtuels" : "pool de threads",
+                    percentileMillis(50), percentileMillis(95), percentileMillis(99), parStatut(),
+                    lignesRejetees.isEmpty() ? "" : " | " + lignesRejetees.size() + " ligne(s) rejetée(s)");
+        }
+    }
+
+    private static final CompletableFuture<Void> TERMINEE = CompletableFuture.completedFuture(null);
+
+    private final CompteService compteService;
+    private final int concurrence;
+    private final boolean threadsVirtuelsDemandes;
+
+    /**
+     * @param concurrence       nombre maximal d'opérations en vol (en pratique la taille du pool de connexions)
+     * @param threadsVirtuels   utiliser les threads virtuels quand la JVM les propose
+     */
+    public BulkOperationExecutor(CompteService compteService, int concurrence, boolean threadsVirtuels) {
+        this.compteService = compteService;
+        this.concurrence = Math.max(1, concurrence);
+        this.threadsVirtuelsDemandes = threadsVirtuels;
+    }
+
+    /**
+     * Lit le fichier (les lignes mal formées sont rejetées et signalées) puis exécute ses opérations.
+     */
+    public Rapport executerFichier(Path fichier) throws IOException {
+        List<Operation> operations = new ArrayList<>();
+        List<String> rejetees = new ArrayList<>();
+        List<String> lignes = Files.readAllLines(fichier, StandardCharsets.UTF_8);
+        for (int i = 0; i < lignes.size(); i++) {
+            String ligne = lignes.get(i).strip();
+            if (ligne.isEmpty() || ligne.startsWith("#")) {
+                continue;
+            }
+            try {
+                operations.add(Operation.lire(i + 1, ligne));
+            } catch (IllegalArgumentException e) { // NumberFormatException incluse
+                rejetees.add("ligne " + (i + 1) + " : " + e.getMessage());
+            }
+        }
+        return executer(operations, rejetees);
+    }
+
+    public Rapport executer(List<Operation> operations) {
+        return executer(operations, List.of());
+    }
+
+    private Rapport executer(List<Operation> operations, List<String> lignesRejetees) {
+        Resultat[] resultats = new Resultat[operations.size()];
+        Semaphore places = new Semaphore(concurrence);
+        ExecutorService executeur = threadsVirtuelsDemandes ? ServiceExecutor.creerExecuteurVirtuel() : null;
+        boolean virtuels = executeur != null;
+        if (executeur == null) {
+            executeur = ServiceExecutor.creerPool(concurrence, "operations-en-masse-");
+        }
+
+        // Dernière opération soumise pour chaque compte, que la suivante du même compte doit attendre
+        Map<Long, CompletableFuture<?>> derniereParCompte = new HashMap<>();
+        long debut = System.nanoTime();
+        try {
+            for (int i = 0; i < operations.size(); i++) {
+                Operation operation = operations.get(i);
+                int indice = i;
+                // Le thread soumetteur attend une place : jamais plus de `concurrence` opérations créées d'avance.
+                // Les opérations en attente d'une précédente n'occupent pas de thread, seulement une place.
+                places.acquireUninterruptibly();
+                CompletableFuture<?> execution;
+                try {
+                    // handle : l'opération s'exécute même si la précédente a échoué
+                    execution = precedentes(derniereParCompte, operation).handleAsync((ignore, erreur) -> {
+                        try {
+                            resultats[indice] = executerUne(operation);
+                        } finally {
+                            places.release();
+                        }
+                        return null;
+                    }, executeur);
+                } catch (RejectedExecutionException e) {
+                    places.release();
+                    resultats[indice] = new Resultat(operation, StatutOperation.ERREUR, 0);
+                    continue;
+                }
+                derniereParCompte.put(operation.idCompte(), execution);
+                if (operation.type() == TypeOperation.VIREMENT) {
+                    derniereParCompte.put(operation.idCompteDest(), execution);
+                }
+            }
+            // Toutes les places rendues = toutes les opérations terminées (et leurs résultats visibles)
+            places.acquireUninterruptibly(concurrence);
+        } finally {
+            executeur.shutdown();
+        }
+        long duree = System.nanoTime() - debut;
+        return new Rapport(List.of(resultats), lignesRejetees, duree, concurrence, virtuels);
+    }
+
+    private static CompletableFuture<?> precedentes(Map<Long, CompletableFuture<?>> derniereParCompte,
+                                                    Operation operation) {
+        CompletableFuture<?> source = derniereParCompte.getOrDefault(operation.idCompte(), TERMINEE);
+        if (operation.type() != TypeOperation.VIREMENT) {
+            return source;
+        }
+        CompletableFuture<?> destination = derniereParCompte.getOrDefault(operation.idCompteDest(), TERMINEE);
+        return source == destination ? source : CompletableFuture.allOf(source, destination);
+    }
+
+    private Resultat executerUne(Operation operation) {
+        long debut = System.nanoTime();
+        StatutOperation statut;
+        try {
+            ResultatOperation resultat = switch (operation.type()) {
+                case VERSEMENT -> compteService.executerVersement(operation.idCompte(), operation.montant(), operation.lieu());
+                case RETRAIT -> compteService.executerRetrait(operation.idCompte(), operation.montant(), operation.lieu());
+                case VIREMENT -> compteService.executerVirement(operation.idCompte(), operation.idCompteDest(), operation.montant());
+            };
+            statut = resultat.statut();
+        } catch (RuntimeException e) {
+            System.err.println("Opération de la ligne " + operation.ligne() + " en échec : " + e.getMessage());
+            statut = StatutOperation.ERREUR;
+        }
+        return new Resultat(operation, statut, System.nanoTime() - debut);
+    }
+}
@@ -6,19 +6,40 @@ import dao.CompteDAO;
 import dao.CompteDAOImpl;
 import entity.Client;
 import entity.Compte;
+import util.LongDoubleHashMap;
+import util.LongLongHashMap;
+import util.Montant;
 
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class ClientService {
 
     private final ClientDAO clientDAO;
     private final CompteDAO compteDAO;
+    // Moteur de comptes en mémoire (null si désactivé) : soldes à jour, tenu informé des suppressions en cascade
+    private final AccountEngine moteur;
+    // Exécuteur des variantes asynchrones (…Async)
+    private final Executor executeur;
 
     // Le constructeur
     public ClientService() {
+        this(null);
+    }
+
+    public ClientService(AccountEngine moteur) {
+        this(moteur, ServiceExecutor.getInstance());
+    }
+
+    // executeur : exécuteur propre aux variantes asynchrones de ce service (au lieu de l'exécuteur partagé)
+    public ClientService(AccountEngine moteur, Executor executeur) {
         this.clientDAO = new ClientDAOImpl();
         this.compteDAO = new CompteDAOImpl();
+        this.moteur = moteur;
+        this.executeur = executeur;
     }
 
     // --- Opérations CRUD de base ---
@@ -60,26 +81,92 @@ public class ClientService {
         }
     }
 
-    public void supprimerClient(long id) {
+    // Retourne false si le client n'a pas été supprimé en base (rien n'est alors modifié ailleurs)
+    public boolean supprimerClient(long id) {
+        List<Compte> comptes = compteDAO.findByClientId(id);
         // Le CompteDAO gère la suppression en cascade via SQL, donc on supprime directement le client.
-        clientDAO.delete(id);
+        // La base d'abord : le moteur, restauré depuis son WAL, ne doit pas perdre des comptes encore en base
+        if (!clientDAO.delete(id)) {
+            System.err.println("Erreur: le client ID " + id + " n'a pas été supprimé.");
+            return false;
+        }
+        // Numéros des comptes supprimés en cascade retirés du filtre d'unicité, une fois la suppression confirmée :
+        // un compteur décrémenté pour un compte resté en base pourrait faire déclarer son numéro absent (doublon accepté)
+        comptes.forEach(compte -> NumeroCompteFilter.getInstance().retirer(compte.getNumero()));
+        if (moteur != null) {
+            try {
+                moteur.supprimerParClient(id);
+            } catch (UncheckedIOException e) {
+                System.err.println("Erreur: client supprimé en base mais ses comptes sont toujours connus du moteur, "
+                        + "journal indisponible : " + e.getMessage());
+            }
+        }
+        // Les comptes supprimés en cascade ne doivent plus être servis par le cache
+        CompteCache.getInstance().invaliderParClient(id);
+        // Ni leurs transactions, également supprimées en cascade, par le store et les agrégats
+        EcouteursTransactions.getInstance().signalerSuppressionComptes(
+                comptes.stream().mapToLong(Compte::getId).toArray());
+        return true;
     }
 
     // --- Méthodes de Rapport (Utilisation de la Programmation Fonctionnelle) ---
 
     public double calculerSoldeTotalParClient(long clientId) {
-        List<Compte> comptes = compteDAO.findByClientId(clientId);
+        List<Compte> comptes = comptesDuClient(clientId);
 
-        //  Stream, MapToDouble et Sum
-        return comptes.stream()
-                .mapToDouble(Compte::getSolde) // Mapping fonctionnel vers le solde
-                .sum();                       // Somme de tous les soldes
+        //  Stream, MapToLong et Sum : somme exacte en centimes, convertie une seule fois
+        return Montant.versMontant(comptes.stream()
+                .mapToLong(compte -> Montant.versCentimes(compte.getSolde())) // Mapping fonctionnel vers le solde
+                .sum());                                                      // Somme de tous les soldes
+    }
+
+    /**
+     * Solde total de chaque client en une seule lecture des comptes (au lieu d'une requête par client).
+     */
+    public LongDoubleHashMap calculerSoldesTotauxParClient() {
+        return sommerSoldesParClient(tousLesComptes());
+    }
+
+    // Cumul en centimes par client (sans dérive), converti en dh à la fin
+    static LongDoubleHashMap sommerSoldesParClient(List<Compte> comptes) {
+        LongLongHashMap centimes = new LongLongHashMap(comptes.size());
+        comptes.forEach(c -> centimes.ajouter(c.getIdClient(), Montant.versCentimes(c.getSolde())));
+        LongDoubleHashMap soldes = new LongDoubleHashMap(centimes.size());
+        centimes.forEach((idClient, total) -> soldes.put(idClient, Montant.versMontant(total)));
+        return soldes;
     }
 
     public long compterNombreDeComptesParClient(long clientId) {
-        List<Compte> comptes = compteDAO.findByClientId(clientId);
+        List<Compte> comptes = comptesDuClient(clientId);
 
         // Programmation Fonctionnelle : Retourne la taille de la liste
         return comptes.stream().count();
     }
-}
\ No newline at end of file
+
+    // Avec le moteur, la base n'a les soldes qu'au dernier point de contrôle
+    private List<Compte> tousLesComptes() {
+        return moteur != null ? moteur.comptes() : compteDAO.findAll();
+    }
+
+    private List<Compte> comptesDuClient(long clientId) {
+        return moteur != null ? moteur.comptesDuClient(clientId) : compteDAO.findByClientId(clientId);
+    }
+
+    // --- Variantes asynchrones : à composer pour lancer des lectures indépendantes en parallèle ---
+
+    public CompletableFuture<Optional<Client>> trouverClientParIdAsync(long id) {
+        return CompletableFuture.supplyAsync(() -> trouverClientParId(id), executeur);
+    }
+
+    public CompletableFuture<List<Client>> listerTousLesClientsAsync() {
+        return CompletableFuture.supplyAsync(this::listerTousLesClients, executeur);
+    }
+
+    public CompletableFuture<Double> calculerSoldeTotalParClientAsync(long clientId) {
+        return CompletableFuture.supplyAsync(() -> calculerSoldeTotalParClient(clientId), executeur);
+    }
+
+    public CompletableFuture<LongDoubleHashMap> calculerSoldesTotauxParClientAsync() {
+        return CompletableFuture.supplyAsync(this::calculerSoldesTotauxParClient, executeur);
+    }
+}
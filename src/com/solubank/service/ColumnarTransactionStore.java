@@ -0,0 +1,311 @@
+package service;
+
+import dao.TransactionDAO;
+import entity.StatistiquesTransaction;
+import entity.Transaction;
+import entity.TypeTransaction;
+import util.Montant;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Stockage analytique des transactions en colonnes de types primitifs (environ 33 octets par ligne
+ * au lieu de plus de 100 pour un record Transaction avec LocalDate et String).
+ * Les filtres et regroupements parcourent directement les tableaux ; seules les lignes retenues
+ * sont reconverties en Transaction.
+ * Tenu à jour par EcouteursTransactions : ajout de chaque écriture validée, retrait des transactions
+ * des comptes supprimés.
+ */
+public class ColumnarTransactionStore implements EcouteursTransactions.Ecouteur {
+
+    private static final int CAPACITE_INITIALE = 1024;
+    private static final TypeTransaction[] TYPES = TypeTransaction.values();
+    // Transaction sans date (dateTrans NULL en base) : hors de l'index temporel, donc de tout filtre par période
+    private static final int JOUR_ABSENT = Integer.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Colonnes (une ligne = un indice)
+    private long[] ids = new long[CAPACITE_INITIALE];
+    private int[] jours = new int[CAPACITE_INITIALE];              // LocalDate.toEpochDay() ou JOUR_ABSENT
+    private long[] montantsCentimes = new long[CAPACITE_INITIALE]; // Montant en centimes (sommes exactes)
+    private byte[] types = new byte[CAPACITE_INITIALE];            // TypeTransaction.ordinal()
+    private int[] lieux = new int[CAPACITE_INITIALE];              // Code du lieu dans le dictionnaire
+    private long[] comptes = new long[CAPACITE_INITIALE];
+    private int taille;
+    private long dureeChargementNanos;
+
+    // Dictionnaire des lieux : chaque libellé distinct n'est stocké qu'une fois
+    private final LieuDictionary dictionnaireLieux = new LieuDictionary();
+    // Index par compte et par jour, maintenu à chaque ajout (reconstruit après un retrait)
+    private TransactionTimeIndex indexTemporel = new TransactionTimeIndex();
+
+    /**
+     * Charge toutes les transactions par le curseur du DAO (sans liste intermédiaire).
+     */
+    public static ColumnarTransactionStore charger(TransactionDAO transactionDAO) {
+        ColumnarTransactionStore store = new ColumnarTransactionStore();
+        long debut = System.nanoTime();
+        transactionDAO.forEach(store::ajouter);
+        store.dureeChargementNanos = System.nanoTime() - debut;
+        return store;
+    }
+
+    @Override
+    public void ajouter(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            if (taille == ids.length) {
+                agrandir(taille * 2);
+            }
+            ids[taille] = transaction.id();
+            jours[taille] = transaction.date() == null ? JOUR_ABSENT : (int) transaction.date().toEpochDay();
+            montantsCentimes[taille] = Montant.versCentimes(transaction.montant());
+            types[taille] = (byte) transaction.type().ordinal();
+            lieux[taille] = dictionnaireLieux.coder(transaction.lieu());
+            comptes[taille] = transaction.idCompte();
+            indexer(taille);
+            taille++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire les lignes des comptes donnés en compactant les colonnes, puis reconstruit l'index temporel.
+     * Les libellés devenus inutilisés restent dans le dictionnaire.
+     */
+    @Override
+    public void retirerComptes(long[] idsComptes) {
+        long[] tries = idsComptes.clone();
+        Arrays.sort(tries);
+        lock.writeLock().lock();
+        try {
+            int conservees = 0;
+            for (int ligne = 0; ligne < taille; ligne++) {
+                if (Arrays.binarySearch(tries, comptes[ligne]) >= 0) {
+                    continue;
+                }
+                ids[conservees] = ids[ligne];
+                jours[conservees] = jours[ligne];
+                montantsCentimes[conservees] = montantsCentimes[ligne];
+                types[conservees] = types[ligne];
+                lieux[conservees] = lieux[ligne];
+                comptes[conservees] = comptes[ligne];
+                conservees++;
+            }
+            if (conservees == taille) {
+                return;
+            }
+            taille = conservees;
+            indexTemporel = new TransactionTimeIndex();
+            for (int ligne = 0; ligne < taille; ligne++) {
+                indexer(ligne);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int taille() {
+        lock.readLock().lock();
+        try {
+            return taille;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Durée du chargement initial par charger (0 pour un store construit vide)
+    public long dureeChargementNanos() {
+        return dureeChargementNanos;
+    }
+
+    // --- Filtres ---
+
+    public List<Transaction> filtrerParMontantMin(double montantMin) {
+        long seuil = Montant.versCentimes(montantMin);
+        return selectionner(ligne -> montantsCentimes[ligne] >= seuil);
+    }
+
+    public List<Transaction> filtrerParPeriode(LocalDate debut, LocalDate fin) {
+        lock.readLock().lock();
+        try {
+            // Seaux journaliers de l'index : seules les lignes de la période sont visitées
+            return materialiser(indexTemporel.lignesEntre((int) debut.toEpochDay(), (int) fin.toEpochDay()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Transaction> filtrerParCompteEtPeriode(long idCompte, LocalDate debut, LocalDate fin) {
+        lock.readLock().lock();
+        try {
+            return materialiser(indexTemporel.lignesDuCompteEntre(idCompte,
+                    (int) debut.toEpochDay(), (int) fin.toEpochDay()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Transaction> filtrerParLieu(String lieu) {
+        String recherche = lieu.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            // Recherche évaluée une fois par lieu distinct, puis simple lecture du masque par ligne
+            boolean[] retenus = dictionnaireLieux.masque(l -> l.minuscule().contains(recherche));
+            return selectionner(ligne -> lieux[ligne] != LieuDictionary.SANS_LIEU && retenus[lieux[ligne]]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Transaction> filtrerSuspectes(double seuilMontant, String paysHabituel) {
+        long seuil = Montant.versCentimes(seuilMontant);
+        String pays = paysHabituel.toUpperCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            // Règle "pays inhabituel" évaluée une fois par lieu distinct
+            boolean[] horsPays = dictionnaireLieux.masque(l -> !l.estDansLePays(pays));
+            return selectionner(ligne -> montantsCentimes[ligne] > seuil
+                    || (lieux[ligne] != LieuDictionary.SANS_LIEU && horsPays[lieux[ligne]]));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Regroupements ---
+
+    public Map<TypeTransaction, List<Transaction>> regrouperParType() {
+        lock.readLock().lock();
+        try {
+            Map<TypeTransaction, List<Transaction>> regroupement = new EnumMap<>(TypeTransaction.class);
+            for (int ligne = 0; ligne < taille; ligne++) {
+                regroupement.computeIfAbsent(TYPES[types[ligne]], type -> new ArrayList<>()).add(transaction(ligne));
+            }
+            return regroupement;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Nombre, volume, min, max et moyenne par type sur une période (bornes incluses), en un seul parcours.
+     */
+    public List<StatistiquesTransaction> statistiquesParType(LocalDate debut, LocalDate fin) {
+        int jourDebut = (int) debut.toEpochDay();
+        int jourFin = (int) fin.toEpochDay();
+        int nbTypes = TYPES.length;
+        long[] nombres = new long[nbTypes];
+        long[] sommes = new long[nbTypes];
+        long[] mins = new long[nbTypes];
+        long[] maxs = new long[nbTypes];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Arrays.fill(maxs, Long.MIN_VALUE);
+
+        lock.readLock().lock();
+        try {
+            for (int ligne : indexTemporel.lignesEntre(jourDebut, jourFin)) {
+                int type = types[ligne];
+                long montant = montantsCentimes[ligne];
+                nombres[type]++;
+                sommes[type] += montant;
+                mins[type] = Math.min(mins[type], montant);
+                maxs[type] = Math.max(maxs[type], montant);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<StatistiquesTransaction> statistiques = new ArrayList<>();
+        for (int type = 0; type < nbTypes; type++) {
+            if (nombres[type] > 0) {
+                statistiques.add(new StatistiquesTransaction(TYPES[type], nombres[type],
+                        Montant.versMontant(sommes[type]), Montant.versMontant(mins[type]), Montant.versMontant(maxs[type]),
+                        Montant.versMontant(sommes[type]) / nombres[type]));
+            }
+        }
+        return statistiques;
+    }
+
+    /**
+     * Volume total des transactions des comptes donnés.
+     */
+    public double volumeDesComptes(long[] idsComptes) {
+        long[] tries = idsComptes.clone();
+        Arrays.sort(tries);
+        long somme = 0;
+        lock.readLock().lock();
+        try {
+            for (int ligne = 0; ligne < taille; ligne++) {
+                if (Arrays.binarySearch(tries, comptes[ligne]) >= 0) {
+                    somme += montantsCentimes[ligne];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Montant.versMontant(somme);
+    }
+
+    // --- Méthodes internes ---
+
+    // Appelé sous verrou d'écriture
+    private void indexer(int ligne) {
+        if (jours[ligne] != JOUR_ABSENT) {
+            indexTemporel.ajouter(ligne, comptes[ligne], jours[ligne]);
+        }
+    }
+
+    private List<Transaction> selectionner(IntPredicate predicat) {
+        lock.readLock().lock();
+        try {
+            List<Transaction> resultat = new ArrayList<>();
+            for (int ligne = 0; ligne < taille; ligne++) {
+                if (predicat.test(ligne)) {
+                    resultat.add(transaction(ligne));
+                }
+            }
+            return resultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Appelé sous verrou de lecture
+    private List<Transaction> materialiser(int[] lignesRetenues) {
+        List<Transaction> resultat = new ArrayList<>(lignesRetenues.length);
+        for (int ligne : lignesRetenues) {
+            resultat.add(transaction(ligne));
+        }
+        return resultat;
+    }
+
+    // Reconstruit le record d'une ligne (appelé sous verrou de lecture)
+    private Transaction transaction(int ligne) {
+        return new Transaction(
+                ids[ligne],
+                jours[ligne] == JOUR_ABSENT ? null : LocalDate.ofEpochDay(jours[ligne]),
+                Montant.versMontant(montantsCentimes[ligne]),
+                TYPES[types[ligne]],
+                dictionnaireLieux.libelle(lieux[ligne]),
+                comptes[ligne]);
+    }
+
+    private void agrandir(int capacite) {
+        ids = Arrays.copyOf(ids, capacite);
+        jours = Arrays.copyOf(jours, capacite);
+        montantsCentimes = Arrays.copyOf(montantsCentimes, capacite);
+        types = Arrays.copyOf(types, capacite);
+        lieux = Arrays.copyOf(lieux, capacite);
+        comptes = Arrays.copyOf(comptes, capacite);
+    }
+}
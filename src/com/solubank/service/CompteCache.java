@@ -0,0 +1,241 @@
+package service;
+
+import entity.Compte;
+import entity.CompteCourant;
+import entity.CompteEpargne;
+import util.DatabaseConnection;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache des comptes indexé par ID et par numéro, partagé par les services.
+ * Borné en taille (éviction LRU) et en durée de vie (TTL). CompteService l'alimente en écriture
+ * ("write-through") : chaque modification en base est répercutée ou invalidée ici. Les opérations
+ * bancaires invalident le compte (leurs soldes retournés peuvent arriver dans un autre ordre que leurs commits).
+ * Les comptes sont copiés à l'entrée et à la sortie : un appelant qui modifie le compte obtenu
+ * ne modifie pas l'entrée partagée.
+ */
+public class CompteCache {
+
+    private static final CompteCache INSTANCE = new CompteCache(
+            DatabaseConnection.getIntProperty("cache.comptes.size", 1000),
+            DatabaseConnection.getLongProperty("cache.comptes.ttlSeconds", 60));
+
+    private final int tailleMax;
+    private final long ttlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Ordre d'accès : le compte le moins récemment lu est évincé en premier
+    private final LinkedHashMap<Long, Entree> parId = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> idParNumero = new HashMap<>();
+    // Compteurs d'écritures par tranche d'ID (puissance de deux) : une lecture en base commencée avant
+    // une écriture sur le même compte n'est pas mise en cache
+    private final long[] ecrituresParTranche = new long[1024];
+
+    private final AtomicLong succes = new AtomicLong();
+    private final AtomicLong echecs = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record Entree(Compte compte, long expireNanos) {
+    }
+
+    public record Stats(long succes, long echecs, long evictions, int taille) {
+        public double tauxSucces() {
+            long total = succes + echecs;
+            return total == 0 ? 0.0 : (double) succes / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cache comptes[taille=%d, succès=%d, échecs=%d, évictions=%d, taux=%.1f %%]",
+                    taille, succes, echecs, evictions, tauxSucces() * 100);
+        }
+    }
+
+    public CompteCache(int tailleMax, long ttlSecondes) {
+        this.tailleMax = tailleMax;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSecondes);
+    }
+
+    public static CompteCache getInstance() {
+        return INSTANCE;
+    }
+
+    public Optional<Compte> trouverParId(long id) {
+        lock.lock();
+        try {
+            Entree entree = parId.get(id);
+            if (entree == null || estExpiree(entree)) {
+                if (entree != null) {
+                    retirer(id);
+                }
+                echecs.incrementAndGet();
+                return Optional.empty();
+            }
+            succes.incrementAndGet();
+            return Optional.of(copier(entree.compte()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<Compte> trouverParNumero(String numero) {
+        lock.lock();
+        try {
+            Long id = idParNumero.get(numero);
+            if (id == null) {
+                echecs.incrementAndGet();
+                return Optional.empty();
+            }
+            return trouverParId(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void mettre(Compte compte) {
+        if (tailleMax <= 0 || compte.getId() <= 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            inserer(compte);
+            ecrituresParTranche[tranche(compte.getId())]++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Jeton à relever avant de lire un compte en base, puis à passer à mettreSiAbsent.
+     */
+    public long versionEcriture(long id) {
+        lock.lock();
+        try {
+            return ecrituresParTranche[tranche(id)];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Met en cache un compte lu en base, sauf si une entrée valide l'a précédé ou si le compte a été écrit
+     * (ou invalidé) depuis versionLue : l'état lu, peut-être plus ancien, n'est alors pas mis en cache.
+     * Retourne le compte qui fait foi.
+     */
+    public Compte mettreSiAbsent(Compte compte, long versionLue) {
+        if (tailleMax <= 0 || compte.getId() <= 0) {
+            return compte;
+        }
+        lock.lock();
+        try {
+            Entree entree = parId.get(compte.getId());
+            if (entree != null && !estExpiree(entree)) {
+                return copier(entree.compte());
+            }
+            if (ecrituresParTranche[tranche(compte.getId())] == versionLue) {
+                inserer(compte);
+            }
+            return compte;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalider(long id) {
+        lock.lock();
+        try {
+            retirer(id);
+            ecrituresParTranche[tranche(id)]++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Suppression d'un client : ses comptes sont supprimés en cascade par la base
+    public void invaliderParClient(long idClient) {
+        lock.lock();
+        try {
+            Iterator<Entree> it = parId.values().iterator();
+            while (it.hasNext()) {
+                Compte compte = it.next().compte();
+                if (compte.getIdClient() == idClient) {
+                    it.remove();
+                    idParNumero.remove(compte.getNumero());
+                    ecrituresParTranche[tranche(compte.getId())]++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void vider() {
+        lock.lock();
+        try {
+            parId.clear();
+            idParNumero.clear();
+            for (int i = 0; i < ecrituresParTranche.length; i++) {
+                ecrituresParTranche[i]++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats(succes.get(), echecs.get(), evictions.get(), parId.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean estExpiree(Entree entree) {
+        return System.nanoTime() - entree.expireNanos() > 0;
+    }
+
+    private int tranche(long id) {
+        return (int) (id ^ (id >>> 32)) & (ecrituresParTranche.length - 1);
+    }
+
+    private void inserer(Compte compte) {
+        retirer(compte.getId());
+        parId.put(compte.getId(), new Entree(copier(compte), System.nanoTime() + ttlNanos));
+        idParNumero.put(compte.getNumero(), compte.getId());
+        evincerSiNecessaire();
+    }
+
+    private static Compte copier(Compte compte) {
+        if (compte instanceof CompteCourant cc) {
+            return new CompteCourant(cc.getId(), cc.getNumero(), cc.getSolde(), cc.getIdClient(), cc.getDecouvertAutorise());
+        }
+        CompteEpargne ce = (CompteEpargne) compte;
+        return new CompteEpargne(ce.getId(), ce.getNumero(), ce.getSolde(), ce.getIdClient(), ce.getTauxInteret());
+    }
+
+    private void retirer(long id) {
+        Entree ancienne = parId.remove(id);
+        if (ancienne != null) {
+            idParNumero.remove(ancienne.compte().getNumero());
+        }
+    }
+
+    private void evincerSiNecessaire() {
+        Iterator<Entree> it = parId.values().iterator();
+        while (parId.size() > tailleMax && it.hasNext()) {
+            Compte plusAncien = it.next().compte();
+            it.remove();
+            idParNumero.remove(plusAncien.getNumero());
+            evictions.incrementAndGet();
+        }
+    }
+}
@@ -3,115 +3,301 @@ package service;
 
 import dao.CompteDAO;
 import dao.CompteDAOImpl;
+import dao.OperationDAO;
+import dao.OperationDAOFactory;
 import dao.TransactionDAO;
-import dao.TransactionDAOImpl;
+import dao.TransactionDAOFactory;
 import entity.Compte;
+import entity.CompteCourant;
+import entity.CompteEpargne;
+import entity.ResultatOperation;
+import entity.StatutOperation;
 import entity.Transaction;
-import entity.TypeTransaction;
+import util.Montant;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class CompteService {
 
     public final CompteDAO compteDAO;
     private final TransactionDAO transactionDAO;
+    private final OperationDAO operationDAO;
+    private final CompteCache compteCache;
+    private final NumeroCompteFilter filtreNumeros;
+    // Moteur de comptes en mémoire (null : soldes et opérations directement en base)
+    private final AccountEngine moteur;
+    // Notifiés de chaque écriture validée au journal et des suppressions de comptes (store analytique, agrégats...)
+    private final EcouteursTransactions ecouteursTransactions;
+    // Exécuteur des variantes asynchrones (…Async)
+    private final Executor executeur;
 
     public CompteService() {
+        this(null);
+    }
+
+    public CompteService(AccountEngine moteur) {
+        this(moteur, ServiceExecutor.getInstance());
+    }
+
+    // executeur : exécuteur propre aux variantes asynchrones de ce service (au lieu de l'exécuteur partagé)
+    public CompteService(AccountEngine moteur, Executor executeur) {
         this.compteDAO = new CompteDAOImpl();
-        this.transactionDAO = new TransactionDAOImpl();
+        this.transactionDAO = TransactionDAOFactory.getTransactionDAO();
+        // Avec le moteur, les opérations sont validées en mémoire et journalisées dans son WAL ;
+        // sinon en base, une transaction par opération ou par lot (validation groupée)
+        this.operationDAO = moteur != null ? moteur : OperationDAOFactory.getOperationDAO();
+        this.compteCache = CompteCache.getInstance();
+        this.filtreNumeros = NumeroCompteFilter.getInstance();
+        this.moteur = moteur;
+        this.executeur = executeur;
+        this.ecouteursTransactions = EcouteursTransactions.getInstance();
     }
 
     // --- Opérations CRUD de base ---
 
     public Compte ajouterCompte(Compte compte) {
-        //   S'assurer qu'un numéro de compte est unique avant de l'enregistrer
-        if (compteDAO.findByNumero(compte.getNumero()).isPresent()) {
-            System.err.println("Erreur: Le numéro de compte " + compte.getNumero() + " existe déjà.");
+        //   S'assurer qu'un numéro de compte est unique avant de l'enregistrer (filtre, puis cache et base)
+        // Un numéro certainement nouveau pour le filtre n'est pas recherché en base
+        if (filtreNumeros.peutExister(compte.getNumero())) {
+            if (compteCache.trouverParNumero(compte.getNumero()).isPresent()
+                    || compteDAO.findByNumero(compte.getNumero()).isPresent()) {
+                System.err.println("Erreur: Le numéro de compte " + compte.getNumero() + " existe déjà.");
+                return null;
+            }
+            filtreNumeros.signalerFauxPositif();
+        }
+        Compte compteSauvegarde = compteDAO.save(compte);
+        if (compteSauvegarde.getId() == 0) {
+            // Le filtre ne connaît que les numéros créés ici : un autre processus a pu créer le même entre-temps
+            if (compteDAO.findByNumero(compte.getNumero()).isPresent()) {
+                filtreNumeros.ajouter(compte.getNumero());
+                System.err.println("Erreur: Le numéro de compte " + compte.getNumero() + " existe déjà.");
+            }
             return null;
         }
-        return compteDAO.save(compte);
+        filtreNumeros.ajouter(compteSauvegarde.getNumero());
+        if (moteur != null) {
+            try {
+                moteur.enregistrer(compteSauvegarde);
+            } catch (UncheckedIOException e) {
+                // Un compte inconnu du moteur ne pourrait recevoir aucune opération : création annulée
+                System.err.println("Erreur: création du compte annulée, journal du moteur indisponible : " + e.getMessage());
+                compteDAO.delete(compteSauvegarde.getId());
+                filtreNumeros.retirer(compteSauvegarde.getNumero());
+                return null;
+            }
+        }
+        compteCache.mettre(compteSauvegarde);
+        return compteSauvegarde;
     }
 
     public Optional<Compte> trouverCompteParId(long id) {
-        return compteDAO.findById(id);
+        if (moteur != null) {
+            return moteur.trouver(id);
+        }
+        // Lecture via le cache ; en cas d'absence, chargement depuis la base puis mise en cache,
+        // sauf si le compte a été écrit pendant la lecture (l'état lu serait peut-être déjà dépassé)
+        Optional<Compte> enCache = compteCache.trouverParId(id);
+        if (enCache.isPresent()) {
+            return enCache;
+        }
+        long version = compteCache.versionEcriture(id);
+        return compteDAO.findById(id).map(compte -> compteCache.mettreSiAbsent(compte, version));
+    }
+
+    public void modifierCompte(Compte compte) {
+        if (moteur == null) {
+            compteDAO.update(compte);
+            compteCache.mettre(compte);
+            return;
+        }
+        // Le solde est tenu par le moteur (la base n'est mise à jour qu'aux points de contrôle) :
+        // seules les limites sont modifiées, sans écraser les opérations en cours sur le compte
+        double decouvert = compte instanceof CompteCourant cc ? cc.getDecouvertAutorise() : 0.0;
+        double taux = compte instanceof CompteEpargne ce ? ce.getTauxInteret() : 0.0;
+        try {
+            moteur.modifierLimites(compte.getId(), decouvert, taux);
+        } catch (UncheckedIOException e) {
+            System.err.println("Erreur: modification du compte non appliquée, journal du moteur indisponible : " + e.getMessage());
+            return;
+        }
+        compteDAO.updateLimites(compte);
+        compteCache.invalider(compte.getId());
+    }
+
+    public void supprimerCompte(long id) {
+        Optional<Compte> compte = trouverCompteParId(id);
+        // Le numéro ne quitte le filtre d'unicité qu'une fois le compte effectivement supprimé
+        if (!compteDAO.delete(id)) {
+            System.err.println("Erreur: le compte ID " + id + " n'a pas été supprimé.");
+            return;
+        }
+        compte.ifPresent(c -> filtreNumeros.retirer(c.getNumero()));
+        compteCache.invalider(id);
+        if (moteur != null) {
+            try {
+                moteur.supprimer(id);
+            } catch (UncheckedIOException e) {
+                System.err.println("Erreur: compte supprimé en base mais toujours connu du moteur, journal indisponible : "
+                        + e.getMessage());
+            }
+        }
+        // Les transactions du compte sont supprimées en cascade par la base
+        ecouteursTransactions.signalerSuppressionComptes(new long[]{id});
+    }
+
+    public CompteCache.Stats statistiquesCache() {
+        return compteCache.getStats();
+    }
+
+    public NumeroCompteFilter.Stats statistiquesFiltreNumeros() {
+        return filtreNumeros.getStats();
     }
 
     public List<Compte> listerTousLesComptes() {
-        return compteDAO.findAll();
+        return moteur != null ? moteur.comptes() : compteDAO.findAll();
+    }
+
+    public List<Compte> listerComptesDuClient(long idClient) {
+        return moteur != null ? moteur.comptesDuClient(idClient) : compteDAO.findByClientId(idClient);
+    }
+
+    public CompletableFuture<Optional<Compte>> trouverCompteParIdAsync(long id) {
+        return CompletableFuture.supplyAsync(() -> trouverCompteParId(id), executeur);
+    }
+
+    public CompletableFuture<List<Compte>> listerTousLesComptesAsync() {
+        return CompletableFuture.supplyAsync(this::listerTousLesComptes, executeur);
     }
 
     //  Transactions
+    // Chaque opération est une seule transaction JDBC : débit/crédit conditionnel en SQL + écriture au journal
+    // (ou, avec le moteur en mémoire, un seul enregistrement de son WAL).
     public boolean effectuerRetrait(long idCompte, double montant, String lieu) {
-        Optional<Compte> compteOpt = compteDAO.findById(idCompte);
+        if (!montantValide(montant)) {
+            return false;
+        }
+        ResultatOperation resultat = executerRetrait(idCompte, montant, lieu);
 
-        if (compteOpt.isEmpty()) {
-            System.err.println("Erreur: Compte non trouvé.");
+        switch (resultat.statut()) {
+            case SUCCES -> System.out.println("Retrait de " + montant + " effectué avec succès sur le compte ID " + idCompte);
+            case COMPTE_INTROUVABLE -> System.err.println("Erreur: Compte non trouvé.");
+            case SOLDE_INSUFFISANT -> System.err.println("Opération échouée : Solde insuffisant ou limites dépassées.");
+            case ERREUR -> System.err.println("Opération échouée : erreur lors de l'enregistrement du retrait.");
+        }
+        return resultat.estReussie();
+    }
+
+    public boolean effectuerVersement(long idCompte, double montant, String lieu) {
+        if (!montantValide(montant)) {
             return false;
         }
+        ResultatOperation resultat = executerVersement(idCompte, montant, lieu);
+
+        switch (resultat.statut()) {
+            case SUCCES -> System.out.println("Versement de " + montant + " effectué avec succès sur le compte ID " + idCompte);
+            case COMPTE_INTROUVABLE -> System.err.println("Erreur: Compte non trouvé pour le versement.");
+            case SOLDE_INSUFFISANT, ERREUR -> System.err.println("Opération échouée : erreur lors de l'enregistrement du versement.");
+        }
+        return resultat.estReussie();
+    }
 
-        Compte compte = compteOpt.get();
-        double soldeInitial = compte.getSolde();
+    public boolean effectuerVirement(long idCompteSource, long idCompteDest, double montant) {
+        if (!montantValide(montant)) {
+            return false;
+        }
+        ResultatOperation resultat = executerVirement(idCompteSource, idCompteDest, montant);
 
-        // la méthode debiter() de CompteCourant/Epargne vérifie les plafonds
-        compte.debiter(montant);
+        switch (resultat.statut()) {
+            case SUCCES -> System.out.println("Virement de " + montant + " effectué du compte ID " + idCompteSource
+                    + " vers le compte ID " + idCompteDest);
+            case COMPTE_INTROUVABLE -> System.err.println("Virement échoué : compte source ou destination introuvable.");
+            case SOLDE_INSUFFISANT -> System.err.println("Virement échoué au débit : Solde insuffisant ou limites dépassées.");
+            case ERREUR -> System.err.println("Virement échoué : erreur lors de l'enregistrement. Aucune modification appliquée.");
+        }
+        return resultat.estReussie();
+    }
 
-        if (compte.getSolde() < soldeInitial) {
-            // 2. Persistance : Si le débit est autorisé (le solde a changé)
-            compteDAO.update(compte);
+    // Variantes sans affichage (traitements en masse) : un montant invalide donne un échec ERREUR
+    public ResultatOperation executerRetrait(long idCompte, double montant, String lieu) {
+        if (!estMontantPositif(montant)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        // Le contrôle des plafonds (découvert / solde épargne) est fait par l'UPDATE conditionnel
+        ResultatOperation resultat = operationDAO.retrait(idCompte, montant, lieu, LocalDate.now());
+        apresOperation(resultat);
+        return resultat;
+    }
 
-            // 3. Enregistrement de la Transaction
-            Transaction transaction = new Transaction(0, LocalDate.now(), montant, TypeTransaction.RETRAIT, lieu, idCompte);
-            transactionDAO.save(transaction);
+    public ResultatOperation executerVersement(long idCompte, double montant, String lieu) {
+        if (!estMontantPositif(montant)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
+        }
+        ResultatOperation resultat = operationDAO.versement(idCompte, montant, lieu, LocalDate.now());
+        apresOperation(resultat);
+        return resultat;
+    }
 
-            System.out.println("Retrait de " + montant + " effectué avec succès sur le compte " + compte.getNumero());
-            return true;
-        } else {
-            // La méthode debiter a échoué (solde insuffisant ou découvert dépassé)
-            System.err.println("Opération échouée : Solde insuffisant ou limites dépassées.");
-            return false;
+    public ResultatOperation executerVirement(long idCompteSource, long idCompteDest, double montant) {
+        if (!estMontantPositif(montant)) {
+            return ResultatOperation.echec(StatutOperation.ERREUR);
         }
+        // Débit, crédit et les deux écritures sont validés ensemble : jamais de virement à moitié appliqué
+        ResultatOperation resultat = operationDAO.virement(idCompteSource, idCompteDest, montant, LocalDate.now());
+        apresOperation(resultat);
+        return resultat;
     }
 
-    public boolean effectuerVersement(long idCompte, double montant, String lieu) {
-        return trouverCompteParId(idCompte).map(compte -> {
-            compte.crediter(montant);
-            compteDAO.update(compte);
+    // Variantes asynchrones : les opérations sur des comptes différents peuvent être en vol simultanément
+    public CompletableFuture<ResultatOperation> executerRetraitAsync(long idCompte, double montant, String lieu) {
+        return CompletableFuture.supplyAsync(() -> executerRetrait(idCompte, montant, lieu), executeur);
+    }
 
-            Transaction transaction = new Transaction(0, LocalDate.now(), montant, TypeTransaction.VERSEMENT, lieu, idCompte);
-            transactionDAO.save(transaction);
+    public CompletableFuture<ResultatOperation> executerVersementAsync(long idCompte, double montant, String lieu) {
+        return CompletableFuture.supplyAsync(() -> executerVersement(idCompte, montant, lieu), executeur);
+    }
 
-            System.out.println("Versement de " + montant + " effectué avec succès sur le compte " + compte.getNumero());
-            return true;
-        }).orElseGet(() -> {
-            System.err.println("Erreur: Compte non trouvé pour le versement.");
-            return false;
-        });
+    public CompletableFuture<ResultatOperation> executerVirementAsync(long idCompteSource, long idCompteDest, double montant) {
+        return CompletableFuture.supplyAsync(() -> executerVirement(idCompteSource, idCompteDest, montant), executeur);
     }
 
-    public boolean effectuerVirement(long idCompteSource, long idCompteDest, double montant) {
-        // Logique transactionnelle (simplifiée ici, sans bloc transactionnel JDBC)
-        boolean debitReussi = this.effectuerRetrait(idCompteSource, montant, "Virement sortant vers Compte ID " + idCompteDest);
+    // Les comptes modifiés sont invalidés dans le cache (des opérations concurrentes peuvent se terminer
+    // dans un autre ordre que leurs commits : un solde retourné n'est pas forcément le dernier),
+    // puis les écritures enregistrées sont transmises aux écouteurs
+    private void apresOperation(ResultatOperation resultat) {
+        resultat.nouveauxSoldes().keySet().forEach(compteCache::invalider);
+        ecouteursTransactions.signalerEcritures(resultat.ecritures());
+    }
 
-        if (debitReussi) {
-            // Si le retrait est réussi, on procède au crédit
-            return this.effectuerVersement(idCompteDest, montant, "Virement entrant de Compte ID " + idCompteSource);
+    private boolean montantValide(double montant) {
+        if (!estMontantPositif(montant)) {
+            System.err.println("Erreur: Le montant doit être strictement positif et exprimé au centime près.");
+            return false;
         }
+        return true;
+    }
 
-        System.err.println("Virement échoué au débit. Annulation du processus.");
-        return false;
+    // Montant débité/crédité tel quel : au moins un centime, sans fraction de centime à arrondir
+    private static boolean estMontantPositif(double montant) {
+        return montant > 0 && !Double.isNaN(montant) && !Double.isInfinite(montant)
+                && Montant.estEnCentimes(montant) && Montant.versCentimes(montant) > 0;
     }
+
     // Trouve le compte ayant le solde le plus élevé.
     public Optional<Compte> trouverCompteAvecSoldeMaximum() {
-        return compteDAO.findAll().stream()
+        return listerTousLesComptes().stream()
                 // Utilise max() avec un Comparator pour trouver l'élément ayant la plus grande valeur
                 .max(Comparator.comparingDouble(Compte::getSolde));
     }
     // Trouve le compte ayant le solde le moins élevé.
     public Optional<Compte> trouverCompteAvecSoldeMinimum() {
-        return compteDAO.findAll().stream()
+        return listerTousLesComptes().stream()
                 // Utilise min() avec un Comparator pour trouver l'élément ayant la plus petite valeur
                 .min(Comparator.comparingDouble(Compte::getSolde));
     }
@@ -0,0 +1,66 @@
+package service;
+
+import dao.MappedLedgerTransactionDAO;
+import dao.TransactionDAOFactory;
+import entity.Transaction;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Écouteurs du journal des transactions, partagés par les services (store analytique, agrégats, journal local...).
+ * Ils reçoivent chaque écriture validée (opérations, imports groupés) et chaque suppression en cascade :
+ * supprimer un compte ou un client supprime aussi, en base, toutes les transactions des comptes concernés.
+ */
+public final class EcouteursTransactions {
+
+    public interface Ecouteur {
+        void ajouter(Transaction transaction);
+
+        // Toutes les transactions de ces comptes ont été supprimées
+        default void retirerComptes(long[] idsComptes) {
+        }
+    }
+
+    private static final class Holder {
+        private static final EcouteursTransactions INSTANCE = new EcouteursTransactions();
+    }
+
+    private final List<Ecouteur> ecouteurs = new CopyOnWriteArrayList<>();
+
+    private EcouteursTransactions() {
+        // Journal local : les écritures validées en base y sont recopiées avec leur ID,
+        // et les transactions supprimées en cascade par la base y sont marquées supprimées
+        if (TransactionDAOFactory.getTransactionDAO() instanceof MappedLedgerTransactionDAO journal) {
+            ecouteurs.add(new Ecouteur() {
+                @Override
+                public void ajouter(Transaction transaction) {
+                    journal.save(transaction);
+                }
+
+                @Override
+                public void retirerComptes(long[] idsComptes) {
+                    journal.retirerComptes(idsComptes);
+                }
+            });
+        }
+    }
+
+    public static EcouteursTransactions getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public void ajouterEcouteur(Ecouteur ecouteur) {
+        ecouteurs.add(ecouteur);
+    }
+
+    public void signalerEcritures(List<Transaction> ecritures) {
+        ecritures.forEach(ecriture -> ecouteurs.forEach(ecouteur -> ecouteur.ajouter(ecriture)));
+    }
+
+    public void signalerSuppressionComptes(long[] idsComptes) {
+        if (idsComptes.length > 0) {
+            ecouteurs.forEach(ecouteur -> ecouteur.retirerComptes(idsComptes));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Dictionnaire des lieux de transaction : chaque libellé distinct est stocké une seule fois avec
+ * ses formes normalisées (minuscules, majuscules), calculées une seule fois à l'insertion.
+ * Les filtres sur le lieu sont évalués une fois par libellé distinct (masque par code) au lieu
+ * d'une fois par transaction.
+ * Non thread-safe : l'appelant (ColumnarTransactionStore) protège les accès par son verrou.
+ */
+public class LieuDictionary {
+
+    public static final int SANS_LIEU = -1;
+
+    // Formes précalculées d'un libellé
+    public record Lieu(String libelle, String minuscule, String majuscule) {
+
+        public boolean estDansLePays(String paysRecherche) {
+            return majuscule.contains(paysRecherche);
+        }
+    }
+
+    private final Map<String, Integer> codeParLibelle = new HashMap<>();
+    private final List<Lieu> lieuParCode = new ArrayList<>();
+
+    /**
+     * Retourne le code du libellé, en l'ajoutant au dictionnaire s'il est nouveau.
+     */
+    public int coder(String libelle) {
+        if (libelle == null) {
+            return SANS_LIEU;
+        }
+        Integer code = codeParLibelle.get(libelle);
+        if (code != null) {
+            return code;
+        }
+        lieuParCode.add(new Lieu(libelle, libelle.toLowerCase(Locale.ROOT), libelle.toUpperCase(Locale.ROOT)));
+        codeParLibelle.put(libelle, lieuParCode.size() - 1);
+        return lieuParCode.size() - 1;
+    }
+
+    public String libelle(int code) {
+        return code == SANS_LIEU ? null : lieuParCode.get(code).libelle();
+    }
+
+    public Lieu lieu(int code) {
+        return lieuParCode.get(code);
+    }
+
+    public int taille() {
+        return lieuParCode.size();
+    }
+
+    /**
+     * Évalue le prédicat une fois par libellé distinct ; masque[code] indique si le lieu est retenu.
+     */
+    public boolean[] masque(Predicate<Lieu> predicat) {
+        boolean[] masque = new boolean[lieuParCode.size()];
+        for (int code = 0; code < masque.length; code++) {
+            masque[code] = predicat.test(lieuParCode.get(code));
+        }
+        return masque;
+    }
+}
@@ -0,0 +1,192 @@
+package service;
+
+import dao.TransactionDAO;
+import entity.StatistiquesTransaction;
+import entity.Transaction;
+import entity.TypeTransaction;
+import util.Montant;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Agrégats mensuels maintenus au fil de l'eau :
+ * - par (mois, type de transaction) : nombre, volume, min et max ;
+ * - par (mois, compte, type) : le même détail, dont sont recalculés les agrégats d'un mois quand
+ *   les transactions d'un compte supprimé en sont retirées (le min et le max ne se soustraient pas).
+ * Chaque écriture validée (EcouteursTransactions) met à jour les agrégats ; un rapport sur un mois
+ * (ou une tendance pluriannuelle) devient une simple lecture. Reconstructibles depuis le journal.
+ * Les montants sont cumulés en centimes pour des sommes exactes.
+ */
+public class MonthlyRollups implements EcouteursTransactions.Ecouteur {
+
+    private static final TypeTransaction[] TYPES = TypeTransaction.values();
+
+    // Agrégats d'un type sur un mois
+    private static final class Agregat {
+        private long nombre;
+        private long sommeCentimes;
+        private long minCentimes = Long.MAX_VALUE;
+        private long maxCentimes = Long.MIN_VALUE;
+
+        private void ajouter(long centimes) {
+            nombre++;
+            sommeCentimes += centimes;
+            minCentimes = Math.min(minCentimes, centimes);
+            maxCentimes = Math.max(maxCentimes, centimes);
+        }
+
+        private void fusionner(Agregat autre) {
+            nombre += autre.nombre;
+            sommeCentimes += autre.sommeCentimes;
+            minCentimes = Math.min(minCentimes, autre.minCentimes);
+            maxCentimes = Math.max(maxCentimes, autre.maxCentimes);
+        }
+    }
+
+    // Nombre et volume d'un mois (tous types, ou un compte)
+    public record Activite(long nombre, double volumeTotal) {
+    }
+
+    private final NavigableMap<YearMonth, Agregat[]> parMoisEtType = new TreeMap<>();
+    // Agrégats par type de chaque compte actif dans le mois
+    private final Map<YearMonth, Map<Long, Agregat[]>> parMoisEtCompte = new HashMap<>();
+    private long dureeReconstructionNanos;
+
+    /**
+     * Reconstruit les agrégats en parcourant tout le journal des transactions (lecture par curseur).
+     */
+    public static MonthlyRollups reconstruire(TransactionDAO transactionDAO) {
+        MonthlyRollups rollups = new MonthlyRollups();
+        long debut = System.nanoTime();
+        transactionDAO.forEach(rollups::ajouter);
+        rollups.dureeReconstructionNanos = System.nanoTime() - debut;
+        return rollups;
+    }
+
+    @Override
+    public synchronized void ajouter(Transaction transaction) {
+        if (transaction.date() == null) {
+            return;
+        }
+        YearMonth mois = YearMonth.from(transaction.date());
+        long centimes = Montant.versCentimes(transaction.montant());
+        int type = transaction.type().ordinal();
+
+        agregat(parMoisEtType.computeIfAbsent(mois, m -> new Agregat[TYPES.length]), type).ajouter(centimes);
+        agregat(parMoisEtCompte.computeIfAbsent(mois, m -> new HashMap<>())
+                .computeIfAbsent(transaction.idCompte(), id -> new Agregat[TYPES.length]), type).ajouter(centimes);
+    }
+
+    /**
+     * Retire les transactions des comptes supprimés : les mois concernés sont recalculés
+     * à partir du détail des comptes restants.
+     */
+    @Override
+    public synchronized void retirerComptes(long[] idsComptes) {
+        Iterator<Map.Entry<YearMonth, Map<Long, Agregat[]>>> it = parMoisEtCompte.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<YearMonth, Map<Long, Agregat[]>> entree = it.next();
+            Map<Long, Agregat[]> parCompte = entree.getValue();
+            boolean modifie = false;
+            for (long idCompte : idsComptes) {
+                modifie |= parCompte.remove(idCompte) != null;
+            }
+            if (!modifie) {
+                continue;
+            }
+            if (parCompte.isEmpty()) {
+                it.remove();
+                parMoisEtType.remove(entree.getKey());
+                continue;
+            }
+            Agregat[] recalcules = new Agregat[TYPES.length];
+            for (Agregat[] agregatsCompte : parCompte.values()) {
+                for (int type = 0; type < TYPES.length; type++) {
+                    if (agregatsCompte[type] != null) {
+                        agregat(recalcules, type).fusionner(agregatsCompte[type]);
+                    }
+                }
+            }
+            parMoisEtType.put(entree.getKey(), recalcules);
+        }
+    }
+
+    private static Agregat agregat(Agregat[] agregats, int type) {
+        if (agregats[type] == null) {
+            agregats[type] = new Agregat();
+        }
+        return agregats[type];
+    }
+
+    /**
+     * Statistiques par type d'un mois, en O(1) quel que soit le nombre de transactions.
+     */
+    public synchronized List<StatistiquesTransaction> statistiquesDuMois(YearMonth mois) {
+        List<StatistiquesTransaction> statistiques = new ArrayList<>();
+        Agregat[] agregats = parMoisEtType.get(mois);
+        if (agregats == null) {
+            return statistiques;
+        }
+        for (int type = 0; type < TYPES.length; type++) {
+            Agregat agregat = agregats[type];
+            if (agregat != null) {
+                double volume = Montant.versMontant(agregat.sommeCentimes);
+                statistiques.add(new StatistiquesTransaction(TYPES[type], agregat.nombre, volume,
+                        Montant.versMontant(agregat.minCentimes), Montant.versMontant(agregat.maxCentimes), volume / agregat.nombre));
+            }
+        }
+        return statistiques;
+    }
+
+    /**
+     * Nombre et volume total (tous types confondus) de chaque mois de la période, par mois croissant.
+     */
+    public synchronized NavigableMap<YearMonth, Activite> tendance(YearMonth debut, YearMonth fin) {
+        NavigableMap<YearMonth, Activite> tendance = new TreeMap<>();
+        parMoisEtType.subMap(debut, true, fin, true).forEach((mois, agregats) -> {
+            long nombre = 0;
+            long sommeCentimes = 0;
+            for (Agregat agregat : agregats) {
+                if (agregat != null) {
+                    nombre += agregat.nombre;
+                    sommeCentimes += agregat.sommeCentimes;
+                }
+            }
+            tendance.put(mois, new Activite(nombre, Montant.versMontant(sommeCentimes)));
+        });
+        return tendance;
+    }
+
+    public synchronized Activite activiteCompte(long idCompte, YearMonth mois) {
+        Map<Long, Agregat[]> parCompte = parMoisEtCompte.get(mois);
+        Agregat[] agregats = parCompte == null ? null : parCompte.get(idCompte);
+        if (agregats == null) {
+            return new Activite(0, 0.0);
+        }
+        long nombre = 0;
+        long sommeCentimes = 0;
+        for (Agregat agregat : agregats) {
+            if (agregat != null) {
+                nombre += agregat.nombre;
+                sommeCentimes += agregat.sommeCentimes;
+            }
+        }
+        return new Activite(nombre, Montant.versMontant(sommeCentimes));
+    }
+
+    public synchronized int nombreDeMois() {
+        return parMoisEtType.size();
+    }
+
+    // Durée de la reconstruction initiale par reconstruire
+    public long dureeReconstructionNanos() {
+        return dureeReconstructionNanos;
+    }
+}
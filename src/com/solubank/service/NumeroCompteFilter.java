@@ -0,0 +1,108 @@
+package service;
+
+import dao.CompteDAOImpl;
+import entity.Compte;
+import util.CountingBloomFilter;
+import util.DatabaseConnection;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pré-contrôle d'unicité des numéros de compte, partagé par les services.
+ * Un filtre de Bloom à compteurs, construit au démarrage depuis la base puis tenu à jour à chaque
+ * création/suppression, répond "absent" avec certitude : la recherche en base n'est alors pas faite.
+ * Sur un "peut-être", la base tranche ; la contrainte d'unicité de la colonne reste le dernier rempart.
+ */
+public class NumeroCompteFilter {
+
+    private final CountingBloomFilter filtre;
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong requetesEvitees = new AtomicLong();
+    private final AtomicLong fauxPositifs = new AtomicLong();
+
+    // Construit à la première utilisation (nécessite la lecture de tous les comptes)
+    private static final class Holder {
+        private static final NumeroCompteFilter INSTANCE = construire();
+    }
+
+    public record Stats(long elements, int taille, int nombreHachages, double tauxFauxPositifsEstime,
+                        long verifications, long requetesEvitees, long fauxPositifs) {
+        // Part des "peut-être" démentis par la base
+        public double tauxFauxPositifsObserve() {
+            long confirmationsEnBase = verifications - requetesEvitees;
+            return confirmationsEnBase == 0 ? 0.0 : (double) fauxPositifs / confirmationsEnBase;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Filtre numéros[éléments=%d, compteurs=%d, k=%d, faux positifs estimés=%.3f %%, "
+                            + "observés=%.3f %%, vérifications=%d, requêtes évitées=%d]",
+                    elements, taille, nombreHachages, tauxFauxPositifsEstime * 100,
+                    tauxFauxPositifsObserve() * 100, verifications, requetesEvitees);
+        }
+    }
+
+    private NumeroCompteFilter(CountingBloomFilter filtre) {
+        this.filtre = filtre;
+    }
+
+    public static NumeroCompteFilter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static NumeroCompteFilter construire() {
+        if (!DatabaseConnection.getBooleanProperty("filter.numeros.enabled", true)) {
+            return new NumeroCompteFilter(null);
+        }
+        List<Compte> comptes = new CompteDAOImpl().findAll();
+        // Marge pour les créations à venir : le taux de faux positifs croît avec le remplissage
+        int capacite = Math.max(DatabaseConnection.getIntProperty("filter.numeros.capacity", 100_000), comptes.size() * 2);
+        CountingBloomFilter filtre = new CountingBloomFilter(capacite,
+                Double.parseDouble(DatabaseConnection.getProperty("filter.numeros.fpp", "0.01")));
+        comptes.forEach(compte -> filtre.ajouter(compte.getNumero()));
+        return new NumeroCompteFilter(filtre);
+    }
+
+    /**
+     * false : le numéro n'existe certainement pas (aucune vérification en base nécessaire).
+     */
+    public boolean peutExister(String numero) {
+        if (filtre == null) {
+            return true;
+        }
+        verifications.incrementAndGet();
+        if (!filtre.contientPeutEtre(numero)) {
+            requetesEvitees.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    // La base a démenti un "peut-être"
+    public void signalerFauxPositif() {
+        if (filtre != null) {
+            fauxPositifs.incrementAndGet();
+        }
+    }
+
+    public void ajouter(String numero) {
+        if (filtre != null) {
+            filtre.ajouter(numero);
+        }
+    }
+
+    public void retirer(String numero) {
+        if (filtre != null) {
+            filtre.retirer(numero);
+        }
+    }
+
+    public Stats getStats() {
+        if (filtre == null) {
+            return new Stats(0, 0, 0, 0.0, 0, 0, 0);
+        }
+        return new Stats(filtre.nombreElements(), filtre.taille(), filtre.nombreHachages(),
+                filtre.tauxFauxPositifsEstime(), verifications.get(), requetesEvitees.get(), fauxPositifs.get());
+    }
+}
@@ -6,17 +6,26 @@ import dao.ClientDAOImpl;
 import dao.CompteDAO;
 import dao.CompteDAOImpl;
 import dao.TransactionDAO;
-import dao.TransactionDAOImpl;
+import dao.TransactionDAOFactory;
 import entity.Client;
 import entity.Compte;
-import entity.Transaction;
+import entity.StatistiquesTransaction;
 import entity.TypeTransaction;
+import util.LongDoubleHashMap;
+import util.Montant;
 
 import java.time.LocalDate;
-import java.util.Comparator;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 public class RapportService {
@@ -28,87 +37,161 @@ public class RapportService {
     // Définition des seuils
     public static final int PERIODE_INACTIVITE_JOURS = 90; // 3 mois d'inactivité
     private static final double SEUIL_MONTANT_SUSPECT = 10000.0; // Même seuil que TransactionService
+    public static final int TOP_CLIENTS_PAR_DEFAUT = 5;
+
+    // Store analytique en mémoire (null : les rapports sont calculés par la base)
+    private final ColumnarTransactionStore store;
+    // Agrégats mensuels maintenus au fil des opérations (null : calcul à la demande)
+    private final MonthlyRollups rollups;
+    // Moteur de comptes en mémoire (null : soldes lus en base)
+    private final AccountEngine moteur;
+    // Exécuteur des variantes asynchrones (…Async)
+    private final Executor executeur;
 
     public RapportService() {
+        this(null, null, null);
+    }
+
+    public RapportService(ColumnarTransactionStore store, MonthlyRollups rollups, AccountEngine moteur) {
+        this(store, rollups, moteur, ServiceExecutor.getInstance());
+    }
+
+    // executeur : exécuteur propre aux variantes asynchrones de ce service (au lieu de l'exécuteur partagé)
+    public RapportService(ColumnarTransactionStore store, MonthlyRollups rollups, AccountEngine moteur, Executor executeur) {
         this.clientDAO = new ClientDAOImpl();
         this.compteDAO = new CompteDAOImpl();
-        this.transactionDAO = new TransactionDAOImpl();
+        this.transactionDAO = TransactionDAOFactory.getTransactionDAO();
+        this.store = store;
+        this.rollups = rollups;
+        this.moteur = moteur;
+        this.executeur = executeur;
     }
 
     // --- Génération de Rapports Statistique (Stream API Avancé) ---
 
     public List<Map.Entry<Client, Double>> genererTop5ClientsParSolde() {
-        // 1. Récupérer tous les comptes et les regrouper par ID Client
-        Map<Long, List<Compte>> comptesParClient = compteDAO.findAll().stream()
-                .collect(Collectors.groupingBy(Compte::getIdClient));
+        return genererTopClientsParSolde(TOP_CLIENTS_PAR_DEFAUT);
+    }
 
-        // 2. Calculer le solde total pour chaque Client et le stocker dans un Map<Client, Double>
-        Map<Client, Double> soldeTotalParClient = comptesParClient.entrySet().stream()
-                // Map Entry<Long, List<Compte>> -> Map Entry<Client, Double>
-                .collect(Collectors.toMap(
-                        // Clé : Récupère l'objet Client correspondant à l'ID
-                        entry -> clientDAO.findById(entry.getKey()).orElse(null),
-                        // Valeur : Somme les soldes de tous les comptes de la liste
-                        entry -> entry.getValue().stream()
-                                .mapToDouble(Compte::getSolde)
-                                .sum()
-                ));
+    public List<Map.Entry<Client, Double>> genererTopClientsParSolde(int k) {
+        // 1. Récupérer tous les comptes (1 requête) et sommer les soldes par ID Client (table primitive, sans boxing)
+        LongDoubleHashMap soldeTotalParClient = ClientService.sommerSoldesParClient(
+                moteur != null ? moteur.comptes() : compteDAO.findAll());
+
+        // 2. Garder les k meilleurs soldes avec un tas borné (O(n log k)) plutôt qu'un tri complet
+        long[] topIds = soldeTotalParClient.clesDesPlusGrandesValeurs(k);
 
-        // 3. Filtrer les clients null (si non trouvés), trier par solde décroissant et limiter à 5
-        return soldeTotalParClient.entrySet().stream()
-                .filter(entry -> entry.getKey() != null)
-                // Tri par valeur (solde total) en ordre décroissant
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .limit(5)
+        // 3. Charger les k clients retenus en une seule requête
+        Map<Long, Client> clientsParId = clientDAO.findAllByIds(Arrays.stream(topIds).boxed().toList()).stream()
+                .collect(Collectors.toMap(Client::id, client -> client));
+
+        // 4. Filtrer les clients non trouvés, en conservant l'ordre décroissant des soldes
+        return Arrays.stream(topIds)
+                .filter(clientsParId::containsKey)
+                .mapToObj(id -> Map.entry(clientsParId.get(id), soldeTotalParClient.get(id, 0.0)))
                 .toList();
     }
 
     public Map<TypeTransaction, Map<String, Object>> genererRapportMensuel(int mois, int annee) {
-        LocalDate debutMois = LocalDate.of(annee, mois, 1);
-        LocalDate finMois = debutMois.plusMonths(1).minusDays(1);
+        return versRapport(statistiquesDuMois(YearMonth.of(annee, mois)));
+    }
 
-        List<Transaction> transactionsDuMois = transactionDAO.findAll().stream()
-                // Filtrer par date (Lambda expression)
-                .filter(t -> t.date() != null && !t.date().isBefore(debutMois) && !t.date().isAfter(finMois))
-                .toList();
+    /**
+     * Nombre et volume total des transactions de chaque mois de la période (bornes incluses).
+     * Avec les agrégats mensuels, chaque mois est une simple lecture ; avec le store, un parcours de son index
+     * temporel par mois ; sinon une seule agrégation GROUP BY (mois, type) pour toute la période.
+     */
+    public NavigableMap<YearMonth, MonthlyRollups.Activite> genererTendanceMensuelle(YearMonth debut, YearMonth fin) {
+        if (rollups != null) {
+            return rollups.tendance(debut, fin);
+        }
+        NavigableMap<YearMonth, MonthlyRollups.Activite> tendance = new TreeMap<>();
+        if (store == null) {
+            transactionDAO.aggregateByMonthAndType(debut.atDay(1), fin.atEndOfMonth())
+                    .forEach((mois, statistiques) -> tendance.put(mois, versActivite(statistiques)));
+            return tendance;
+        }
+        for (YearMonth mois = debut; !mois.isAfter(fin); mois = mois.plusMonths(1)) {
+            List<StatistiquesTransaction> statistiques = store.statistiquesParType(mois.atDay(1), mois.atEndOfMonth());
+            if (!statistiques.isEmpty()) {
+                tendance.put(mois, versActivite(statistiques));
+            }
+        }
+        return tendance;
+    }
 
-        // Utiliser groupingBy et Collectors.collectingAndThen pour générer des statistiques par Type
-        return transactionsDuMois.stream()
-                .collect(Collectors.groupingBy(
-                        Transaction::type,
-                        // Mapping de chaque groupe de transactions vers un Map<String, Object> de statistiques
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                list -> Map.of(
-                                        "nombre", list.size(),
-                                        "volumeTotal", list.stream().mapToDouble(Transaction::montant).sum()
-                                )
-                        )
+    // Cumul en centimes des types d'un mois
+    private static MonthlyRollups.Activite versActivite(List<StatistiquesTransaction> statistiques) {
+        return new MonthlyRollups.Activite(
+                statistiques.stream().mapToLong(StatistiquesTransaction::nombre).sum(),
+                Montant.versMontant(statistiques.stream()
+                        .mapToLong(stats -> Montant.versCentimes(stats.volumeTotal())).sum()));
+    }
+
+    private List<StatistiquesTransaction> statistiquesDuMois(YearMonth mois) {
+        if (rollups != null) {
+            return rollups.statistiquesDuMois(mois);
+        }
+        // Agrégation GROUP BY type exécutée par la base (ou un parcours des colonnes du store)
+        LocalDate debutMois = mois.atDay(1);
+        LocalDate finMois = mois.atEndOfMonth();
+        return store != null
+                ? store.statistiquesParType(debutMois, finMois)
+                : transactionDAO.aggregateByType(debutMois, finMois);
+    }
+
+    private static Map<TypeTransaction, Map<String, Object>> versRapport(List<StatistiquesTransaction> statistiques) {
+        return statistiques.stream()
+                .collect(Collectors.toMap(
+                        StatistiquesTransaction::type,
+                        stats -> Map.<String, Object>of(
+                                "nombre", stats.nombre(),
+                                "volumeTotal", stats.volumeTotal(),
+                                "montantMin", stats.montantMin(),
+                                "montantMax", stats.montantMax(),
+                                "montantMoyen", stats.montantMoyen()
+                        ),
+                        (a, b) -> a,
+                        () -> new EnumMap<>(TypeTransaction.class)
                 ));
     }
 
     // --- Détection des Anomalies (Spécifique au Rapport) ---
 
     public List<Compte> identifierComptesInactifs() {
-        List<Compte> tousComptes = compteDAO.findAll();
         LocalDate seuilInactivite = LocalDate.now().minusDays(PERIODE_INACTIVITE_JOURS);
 
-        // Utilise Stream pour trouver la dernière transaction et filtrer
-        return tousComptes.stream()
-                .filter(compte -> {
-                    List<Transaction> transactions = transactionDAO.findByCompteId(compte.getId());
-
-                    // Fonctionnelle : Trouver la date maximale de transaction (Optional)
-                    Optional<LocalDate> dateDerniereTransaction = transactions.stream()
-                            .map(Transaction::date)
-                            .max(Comparator.naturalOrder());
-
-                    // Si aucune transaction, le compte est inactif par défaut.
-                    // Si présente, vérifier si elle est avant le seuil.
-                    return dateDerniereTransaction
-                            .map(date -> date.isBefore(seuilInactivite))
-                            .orElse(true); // Aucune transaction trouvée -> inactif
-                })
+        // Une seule requête ensembliste : MAX(dateTrans) GROUP BY idCompte, jointe aux comptes.
+        // Un compte sans aucune transaction est inactif par défaut.
+        List<Compte> inactifs = compteDAO.findInactifsDepuis(seuilInactivite);
+        if (moteur == null) {
+            return inactifs;
+        }
+        // Avec le moteur, la base n'a ni les écritures ni les soldes postérieurs au dernier point de contrôle
+        Set<Long> mouvementes = moteur.comptesMouvementesDepuis(seuilInactivite);
+        return inactifs.stream()
+                .filter(compte -> !mouvementes.contains(compte.getId()))
+                .map(compte -> moteur.trouver(compte.getId()))
+                .flatMap(Optional::stream)
                 .toList();
     }
-}
\ No newline at end of file
+
+    // --- Variantes asynchrones ---
+
+    public CompletableFuture<List<Map.Entry<Client, Double>>> genererTopClientsParSoldeAsync(int k) {
+        return CompletableFuture.supplyAsync(() -> genererTopClientsParSolde(k), executeur);
+    }
+
+    public CompletableFuture<Map<TypeTransaction, Map<String, Object>>> genererRapportMensuelAsync(int mois, int annee) {
+        return CompletableFuture.supplyAsync(() -> genererRapportMensuel(mois, annee), executeur);
+    }
+
+    public CompletableFuture<NavigableMap<YearMonth, MonthlyRollups.Activite>> genererTendanceMensuelleAsync(
+            YearMonth debut, YearMonth fin) {
+        return CompletableFuture.supplyAsync(() -> genererTendanceMensuelle(debut, fin), executeur);
+    }
+
+    public CompletableFuture<List<Compte>> identifierComptesInactifsAsync() {
+        return CompletableFuture.supplyAsync(this::identifierComptesInactifs, executeur);
+    }
+}
@@ -0,0 +1,74 @@
+package service;
+
+import util.DatabaseConnection;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécuteur partagé des méthodes asynchrones (…Async) des services.
+ * Configuré par async.virtualThreads (threads virtuels quand la JVM les propose, Java 21+)
+ * et async.concurrency (tâches exécutées simultanément, par défaut la taille du pool de connexions :
+ * au-delà, les tâches attendraient de toute façon une connexion).
+ */
+public final class ServiceExecutor implements Executor {
+
+    private static final class Holder {
+        private static final ServiceExecutor INSTANCE = new ServiceExecutor(
+                DatabaseConnection.getIntProperty("async.concurrency", DatabaseConnection.getIntProperty("db.pool.maxSize", 10)),
+                DatabaseConnection.getBooleanProperty("async.virtualThreads", true));
+    }
+
+    private final ExecutorService executeur;
+    // Borne les threads virtuels (un pool fixe est déjà borné par sa taille)
+    private final Semaphore places;
+
+    private ServiceExecutor(int concurrence, boolean threadsVirtuels) {
+        int taille = Math.max(1, concurrence);
+        ExecutorService virtuel = threadsVirtuels ? creerExecuteurVirtuel() : null;
+        this.executeur = virtuel != null ? virtuel : creerPool(taille, "service-async-");
+        this.places = virtuel != null ? new Semaphore(taille) : null;
+    }
+
+    public static ServiceExecutor getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    @Override
+    public void execute(Runnable tache) {
+        if (places == null) {
+            executeur.execute(tache);
+            return;
+        }
+        executeur.execute(() -> {
+            places.acquireUninterruptibly();
+            try {
+                tache.run();
+            } finally {
+                places.release();
+            }
+        });
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() n'existe qu'à partir de Java 21 : null si absent
+    static ExecutorService creerExecuteurVirtuel() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    // Threads démons : ne retiennent pas la JVM à la sortie de l'application
+    static ExecutorService creerPool(int taille, String prefixe) {
+        AtomicInteger numero = new AtomicInteger();
+        return Executors.newFixedThreadPool(taille, r -> {
+            Thread t = new Thread(r, prefixe + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -1,27 +1,78 @@
 
 package service;
 
+import dao.Page;
 import dao.TransactionDAO;
+import dao.TransactionDAOFactory;
 import dao.TransactionDAOImpl;
+import entity.Compte;
 import entity.Transaction;
 import entity.TypeTransaction;
 import dao.CompteDAOImpl;
-import entity.Compte;
+
+import util.LongHashSet;
+import util.LongLongHashMap;
+import util.Montant;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TransactionService {
 
     private final TransactionDAO transactionDAO;
+    // Journal des transactions en base, destination des imports groupés
+    private final TransactionDAO transactionsBase;
     private static final double SEUIL_MONTANT_SUSPECT = 10000.0;
     private static final String PAYS_HABITUEL = "MAROC";
+    public static final int TAILLE_PAGE = 20;
+
+    // Store analytique en mémoire (null : toutes les analyses passent par la base)
+    private final ColumnarTransactionStore store;
+    // Exécuteur des variantes asynchrones (…Async)
+    private final Executor executeur;
 
     public TransactionService() {
-        this.transactionDAO = new TransactionDAOImpl();
+        this(null);
+    }
+
+    public TransactionService(ColumnarTransactionStore store) {
+        this(store, ServiceExecutor.getInstance());
+    }
+
+    // executeur : exécuteur propre aux variantes asynchrones de ce service (au lieu de l'exécuteur partagé)
+    public TransactionService(ColumnarTransactionStore store, Executor executeur) {
+        this.transactionDAO = TransactionDAOFactory.getTransactionDAO();
+        this.transactionsBase = transactionDAO instanceof TransactionDAOImpl ? transactionDAO : new TransactionDAOImpl();
+        this.store = store;
+        this.executeur = executeur;
+    }
+
+    /**
+     * Insertion groupée d'écritures (import d'historique) : validées en base en un seul lot puis transmises,
+     * avec leur ID, aux écouteurs du journal comme les écritures des opérations.
+     * Retourne les écritures enregistrées (liste vide si le lot a échoué).
+     */
+    public List<Transaction> importerTransactions(List<Transaction> transactions) {
+        // En base même avec le journal local, qui reçoit les écritures par son écouteur
+        List<Long> ids = transactionsBase.saveAll(transactions);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Transaction> enregistrees = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Transaction t = transactions.get(i);
+            enregistrees.add(new Transaction(ids.get(i), t.date(), t.montant(), t.type(), t.lieu(), t.idCompte()));
+        }
+        EcouteursTransactions.getInstance().signalerEcritures(enregistrees);
+        return enregistrees;
     }
 
     // --- Opérations de consultation et filtrage
@@ -32,15 +83,36 @@ public class TransactionService {
                 .toList();
     }
 
+    // Page d'historique d'un compte (jeton null pour la première page)
+    public Page<Transaction> listerTransactionsParCompte(long idCompte, String jeton) {
+        return transactionDAO.findPageByCompteId(idCompte, jeton, TAILLE_PAGE);
+    }
+
+    public Page<Transaction> listerToutesLesTransactions(String jeton) {
+        return transactionDAO.findPage(jeton, TAILLE_PAGE);
+    }
+
     public List<Transaction> filtrerParMontantMin(double montantMin) {
-        return transactionDAO.findAll().stream()
-                .filter(t -> t.montant() >= montantMin)
-                .toList();
+        if (store != null) {
+            return store.filtrerParMontantMin(montantMin);
+        }
+        // Le filtre est exécuté par la base : seules les transactions retenues sont transférées
+        return transactionDAO.findByMontantMin(montantMin);
     }
 
     public Map<TypeTransaction, List<Transaction>> regrouperParType() {
-        return transactionDAO.findAll().stream()
-                .collect(Collectors.groupingBy(Transaction::type));
+        if (store != null) {
+            return store.regrouperParType();
+        }
+        // Une requête par type ; seuls les types ayant des transactions apparaissent (comme groupingBy)
+        Map<TypeTransaction, List<Transaction>> regroupement = new EnumMap<>(TypeTransaction.class);
+        for (TypeTransaction type : TypeTransaction.values()) {
+            List<Transaction> transactions = transactionDAO.findByType(type);
+            if (!transactions.isEmpty()) {
+                regroupement.put(type, transactions);
+            }
+        }
+        return regroupement;
     }
 
     public double calculerMoyenneTransactionsParCompte(long idCompte) {
@@ -57,16 +129,20 @@ public class TransactionService {
     // --- Détection des Anomalies
 
     public List<Transaction> detecterTransactionsSuspectes() {
-        // Simule la détection des anomalies en filtrant l'ensemble des transactions
-        return transactionDAO.findAll().stream()
-                .filter(t -> t.montant() > SEUIL_MONTANT_SUSPECT ||
-                        (t.lieu() != null && !t.lieu().toUpperCase().contains(PAYS_HABITUEL)))
-                .toList();
+        if (store != null) {
+            return store.filtrerSuspectes(SEUIL_MONTANT_SUSPECT, PAYS_HABITUEL);
+        }
+        // Règle évaluée en SQL : montant > seuil OU lieu ne contenant pas le pays habituel
+        return transactionDAO.findSuspectes(SEUIL_MONTANT_SUSPECT, PAYS_HABITUEL);
     }
 
     public List<Transaction> detecterFrequenceExcessive() {
-        // 1. Regrouper toutes les transactions par ID de Compte
-        Map<Long, List<Transaction>> transactionsParCompte = transactionDAO.findAll().stream()
+        // 1. Regrouper les transactions du jour (filtrées en SQL) par ID de Compte
+        LocalDate aujourdhui = LocalDate.now();
+        List<Transaction> transactionsDuJour = store != null
+                ? store.filtrerParPeriode(aujourdhui, aujourdhui)
+                : transactionDAO.findByDateRange(aujourdhui, aujourdhui);
+        Map<Long, List<Transaction>> transactionsParCompte = transactionsDuJour.stream()
                 .collect(Collectors.groupingBy(Transaction::idCompte));
 
         // 2. Traiter chaque groupe (compte) et filtrer les transactions suspectes
@@ -76,7 +152,7 @@ public class TransactionService {
                 .flatMap(transactions -> {
                     // Filtrer les transactions du jour et trier par date/heure (simulé par date seule ici)
                     List<Transaction> transactionsAujourdhui = transactions.stream()
-                            .filter(t -> t.date().isEqual(LocalDate.now()))
+                            .filter(t -> t.date().isEqual(aujourdhui))
                             .sorted(Comparator.comparing(Transaction::date)) // Tri par date pour simuler l'ordre temporel
                             .toList();
 
@@ -85,31 +161,87 @@ public class TransactionService {
                         System.out.println("Alerte: " + transactionsAujourdhui.get(0).idCompte() + " a " + transactionsAujourdhui.size() + " transactions aujourd'hui.");
                         return transactionsAujourdhui.stream(); // Retourne toutes les transactions du compte comme suspectes
                     }
-                    return java.util.stream.Stream.empty();
+                    return Stream.empty();
                 })
                 .toList();
     }
     // Filtre les transactions selon le lieu (recherche partielle).
     public List<Transaction> filtrerParLieu(String lieu) {
-        return transactionDAO.findAll().stream()
-                .filter(t -> t.lieu() != null && t.lieu().toLowerCase().contains(lieu.toLowerCase()))
-                .toList();
+        if (store != null) {
+            return store.filtrerParLieu(lieu);
+        }
+        // Recherche partielle insensible à la casse (ILIKE)
+        return transactionDAO.findByLieu(lieu);
     }
 // Filtre les transactions selon une date spécifique.
 public List<Transaction> filtrerParDate(LocalDate date) {
-    return transactionDAO.findAll().stream()
-            .filter(t -> t.date() != null && t.date().isEqual(date))
-            .toList();
+    if (store != null) {
+        return store.filtrerParPeriode(date, date);
+    }
+    return transactionDAO.findByDateRange(date, date);
+}
+
+// Filtre les transactions d'un compte sur une période (bornes incluses).
+public List<Transaction> filtrerParCompteEtPeriode(long idCompte, LocalDate debut, LocalDate fin) {
+    if (store != null) {
+        return store.filtrerParCompteEtPeriode(idCompte, debut, fin);
+    }
+    return transactionDAO.findByCompteIdAndDateRange(idCompte, debut, fin);
 }
 
 // Calcule le total du volume des transactions pour un client donné.
 public double calculerTotalTransactionsParClient(long idClient) {
-    List<Long> compteIds = new CompteDAOImpl().findByClientId(idClient).stream()
-            .map(Compte::getId)
-            .toList();
-    return transactionDAO.findAll().stream()
-            .filter(t -> compteIds.contains(t.idCompte()))
-            .mapToDouble(Transaction::montant)
-            .sum();
+    // Ensemble primitif : test d'appartenance en O(1) pour chaque transaction parcourue
+    LongHashSet compteIds = new LongHashSet();
+    new CompteDAOImpl().findByClientId(idClient).forEach(compte -> compteIds.add(compte.getId()));
+    if (store != null) {
+        return store.volumeDesComptes(compteIds.toArray());
+    }
+    try (Stream<Transaction> transactions = transactionDAO.streamAll()) {
+        return Montant.versMontant(transactions
+                .filter(t -> compteIds.contains(t.idCompte()))
+                .mapToLong(t -> Montant.versCentimes(t.montant()))
+                .sum());
+    }
+}
+
+    // --- Variantes asynchrones ---
+
+    public CompletableFuture<List<Transaction>> listerTransactionsParCompteAsync(long idCompte) {
+        return CompletableFuture.supplyAsync(() -> listerTransactionsParCompte(idCompte), executeur);
+    }
+
+    public CompletableFuture<List<Transaction>> filtrerParMontantMinAsync(double montantMin) {
+        return CompletableFuture.supplyAsync(() -> filtrerParMontantMin(montantMin), executeur);
+    }
+
+    public CompletableFuture<List<Transaction>> detecterTransactionsSuspectesAsync() {
+        return CompletableFuture.supplyAsync(this::detecterTransactionsSuspectes, executeur);
+    }
+
+    public CompletableFuture<List<Transaction>> detecterFrequenceExcessiveAsync() {
+        return CompletableFuture.supplyAsync(this::detecterFrequenceExcessive, executeur);
+    }
+
+    // Les comptes du client et le volume de chaque compte sont lus en parallèle puis combinés
+    // (la version bloquante doit attendre les comptes avant de parcourir les transactions).
+    public CompletableFuture<Double> calculerTotalTransactionsParClientAsync(long idClient) {
+        CompletableFuture<List<Compte>> comptes = CompletableFuture.supplyAsync(
+                () -> new CompteDAOImpl().findByClientId(idClient), executeur);
+        if (store != null) {
+            return comptes.thenApply(liste -> store.volumeDesComptes(liste.stream().mapToLong(Compte::getId).toArray()));
+        }
+        CompletableFuture<LongLongHashMap> volumesParCompte = CompletableFuture.supplyAsync(
+                this::volumesEnCentimesParCompte, executeur);
+        return comptes.thenCombine(volumesParCompte, (liste, volumes) -> Montant.versMontant(liste.stream()
+                .mapToLong(compte -> volumes.get(compte.getId(), 0L))
+                .sum()));
+    }
+
+    // Volume (en centimes) de chaque compte en un parcours en flux de toutes les transactions
+    private LongLongHashMap volumesEnCentimesParCompte() {
+        LongLongHashMap volumes = new LongLongHashMap();
+        transactionDAO.forEach(t -> volumes.ajouter(t.idCompte(), Montant.versCentimes(t.montant())));
+        return volumes;
+    }
 }
-}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index temporel des lignes du store analytique :
+ * - par compte, les lignes triées par jour (recherche dichotomique des bornes d'une période) ;
+ * - global, un "seau" de lignes par jour, les jours étant triés.
+ * Une requête sur une période coûte O(log n + nombre de résultats) au lieu d'un parcours complet.
+ * Non thread-safe : l'appelant (ColumnarTransactionStore) protège les accès par son verrou.
+ */
+public class TransactionTimeIndex {
+
+    private final Map<Long, SerieCompte> seriesParCompte = new HashMap<>();
+    private final NavigableMap<Integer, ListeLignes> lignesParJour = new TreeMap<>();
+
+    /**
+     * Indexe une nouvelle ligne (ajout en fin de série dans le cas courant d'une date croissante).
+     */
+    public void ajouter(int ligne, long idCompte, int jour) {
+        seriesParCompte.computeIfAbsent(idCompte, id -> new SerieCompte()).ajouter(jour, ligne);
+        lignesParJour.computeIfAbsent(jour, j -> new ListeLignes()).ajouter(ligne);
+    }
+
+    /**
+     * Lignes de toutes les transactions entre deux jours (epochDay, bornes incluses), par jour croissant.
+     */
+    public int[] lignesEntre(int jourDebut, int jourFin) {
+        if (jourDebut > jourFin) {
+            return new int[0];
+        }
+        ListeLignes resultat = new ListeLignes();
+        lignesParJour.subMap(jourDebut, true, jourFin, true).values()
+                .forEach(resultat::ajouterTout);
+        return resultat.versTableau();
+    }
+
+    /**
+     * Lignes des transactions d'un compte entre deux jours (bornes incluses), par jour croissant.
+     */
+    public int[] lignesDuCompteEntre(long idCompte, int jourDebut, int jourFin) {
+        SerieCompte serie = seriesParCompte.get(idCompte);
+        if (serie == null || jourDebut > jourFin) {
+            return new int[0];
+        }
+        return serie.lignesEntre(jourDebut, jourFin);
+    }
+
+    // Tableau d'entiers extensible
+    private static final class ListeLignes {
+        private int[] valeurs = new int[4];
+        private int taille;
+
+        private void ajouter(int valeur) {
+            if (taille == valeurs.length) {
+                valeurs = Arrays.copyOf(valeurs, taille * 2);
+            }
+            valeurs[taille++] = valeur;
+        }
+
+        private void ajouterTout(ListeLignes autre) {
+            if (taille + autre.taille > valeurs.length) {
+                valeurs = Arrays.copyOf(valeurs, Math.max(valeurs.length * 2, taille + autre.taille));
+            }
+            System.arraycopy(autre.valeurs, 0, valeurs, taille, autre.taille);
+            taille += autre.taille;
+        }
+
+        private int[] versTableau() {
+            return Arrays.copyOf(valeurs, taille);
+        }
+    }
+
+    // Transactions d'un compte triées par jour (colonnes parallèles jours / lignes)
+    private static final class SerieCompte {
+        private int[] jours = new int[4];
+        private int[] lignes = new int[4];
+        private int taille;
+
+        private void ajouter(int jour, int ligne) {
+            if (taille == jours.length) {
+                jours = Arrays.copyOf(jours, taille * 2);
+                lignes = Arrays.copyOf(lignes, taille * 2);
+            }
+            // Cas courant : date >= dernière date indexée, ajout en fin ; sinon insertion à sa place
+            int position = (taille == 0 || jours[taille - 1] <= jour) ? taille : premierApres(jour);
+            if (position < taille) {
+                System.arraycopy(jours, position, jours, position + 1, taille - position);
+                System.arraycopy(lignes, position, lignes, position + 1, taille - position);
+            }
+            jours[position] = jour;
+            lignes[position] = ligne;
+            taille++;
+        }
+
+        private int[] lignesEntre(int jourDebut, int jourFin) {
+            int debut = premierAPartirDe(jourDebut);
+            int fin = premierApres(jourFin);
+            return Arrays.copyOfRange(lignes, debut, Math.max(debut, fin));
+        }
+
+        // Première position dont le jour est >= jour
+        private int premierAPartirDe(int jour) {
+            int bas = 0;
+            int haut = taille;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (jours[milieu] < jour) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas;
+        }
+
+        // Première position dont le jour est > jour
+        private int premierApres(int jour) {
+            int bas = 0;
+            int haut = taille;
+            while (bas < haut) {
+                int milieu = (bas + haut) >>> 1;
+                if (jours[milieu] <= jour) {
+                    bas = milieu + 1;
+                } else {
+                    haut = milieu;
+                }
+            }
+            return bas;
+        }
+    }
+}
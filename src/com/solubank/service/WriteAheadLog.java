@@ -0,0 +1,228 @@
+package service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal d'écriture anticipée (WAL) du moteur de comptes : chaque modification est ajoutée ici,
+ * avec un numéro de séquence, avant d'être appliquée en mémoire.
+ * Fichiers wal-&lt;séquence de départ&gt;.log ; chaque enregistrement est [longueur][contenu][CRC32],
+ * une fin de fichier tronquée (arrêt brutal pendant une écriture) est ignorée à la relecture.
+ * <p>
+ * L'ajout (sous le moniteur du journal) ne fait qu'écrire dans le fichier ; le fsync est fait à part par
+ * rendreDurable, en validation groupée : un fsync couvre tous les enregistrements ajoutés avant lui,
+ * et les ajouts continuent pendant qu'il s'exécute.
+ */
+class WriteAheadLog implements AutoCloseable {
+
+    // Types d'enregistrement
+    static final byte COMPTE = 1;             // création ou modification complète d'un compte
+    static final byte SUPPRESSION = 2;        // suppression d'un compte
+    static final byte SUPPRESSION_CLIENT = 3; // suppression en cascade des comptes d'un client
+    static final byte MOUVEMENT = 4;          // versement (+) ou retrait (-) sur un compte, avec son écriture
+    static final byte VIREMENT = 5;           // débit de la source et crédit de la destination, avec leurs écritures
+    static final byte LIMITES = 6;            // découvert autorisé / taux d'intérêt d'un compte, solde inchangé
+
+    /**
+     * Écrit le contenu d'un enregistrement (après la séquence et le type).
+     */
+    @FunctionalInterface
+    interface Contenu {
+        void ecrire(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Rejoue un enregistrement relu.
+     */
+    @FunctionalInterface
+    interface Rejeu {
+        void appliquer(long sequence, byte type, DataInputStream in) throws IOException;
+    }
+
+    private final Path repertoire;
+    private final boolean synchroniserChaqueEcriture;
+    private FileChannel canal;
+    private Path fichierCourant;
+    private long derniereSequence;
+
+    // Validation groupée : un seul fsync à la fois, qui rend durables toutes les séquences jusqu'à sequenceDurable
+    private final Object verrouSynchro = new Object();
+    private long sequenceDurable;
+
+    WriteAheadLog(Path repertoire, boolean synchroniserChaqueEcriture) {
+        this.repertoire = repertoire;
+        this.synchroniserChaqueEcriture = synchroniserChaqueEcriture;
+    }
+
+    /**
+     * Relit, dans l'ordre, les enregistrements de séquence strictement supérieure à apresSequence,
+     * puis ouvre un nouveau fichier pour les écritures suivantes. Retourne le nombre d'enregistrements rejoués.
+     */
+    synchronized long rejouer(long apresSequence, Rejeu rejeu) throws IOException {
+        long rejoues = 0;
+        derniereSequence = apresSequence;
+        for (Path fichier : fichiers()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichier)))) {
+                byte[] contenu;
+                while ((contenu = lireEnregistrement(in, fichier)) != null) {
+                    DataInputStream donnees = new DataInputStream(new ByteArrayInputStream(contenu));
+                    long sequence = donnees.readLong();
+                    byte type = donnees.readByte();
+                    if (sequence > apresSequence) {
+                        rejeu.appliquer(sequence, type, donnees);
+                        rejoues++;
+                    }
+                    derniereSequence = Math.max(derniereSequence, sequence);
+                }
+            }
+        }
+        ouvrirNouveauFichier();
+        return rejoues;
+    }
+
+    /**
+     * Ajoute un enregistrement à la suite du fichier courant et retourne sa séquence.
+     * L'enregistrement n'est pas encore forcé sur disque : voir rendreDurable.
+     */
+    synchronized long ajouter(byte type, Contenu contenu) throws IOException {
+        long sequence = derniereSequence + 1;
+        ByteArrayOutputStream tampon = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(tampon);
+        out.writeLong(sequence);
+        out.writeByte(type);
+        contenu.ecrire(out);
+        byte[] octets = tampon.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(octets);
+        ByteBuffer enregistrement = ByteBuffer.allocate(4 + octets.length + 8);
+        enregistrement.putInt(octets.length).put(octets).putLong(crc.getValue()).flip();
+        while (enregistrement.hasRemaining()) {
+            canal.write(enregistrement);
+        }
+        derniereSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Retourne une fois l'enregistrement de cette séquence forcé sur disque (immédiatement si le WAL
+     * n'est pas configuré pour synchroniser chaque écriture). À appeler hors de tout verrou de l'appelant.
+     * Les appelants arrivés pendant un fsync attendent le suivant, qui couvre tous leurs enregistrements.
+     */
+    void rendreDurable(long sequence) throws IOException {
+        if (!synchroniserChaqueEcriture) {
+            return;
+        }
+        synchronized (verrouSynchro) {
+            if (sequenceDurable >= sequence) {
+                return;
+            }
+            FileChannel aForcer;
+            long couverte;
+            synchronized (this) {
+                aForcer = canal;
+                couverte = derniereSequence;
+            }
+            try {
+                if (aForcer != null) {
+                    aForcer.force(false);
+                }
+            } catch (ClosedChannelException e) {
+                // Fichier fermé entre-temps par basculer ou close, qui l'ont forcé avant de le fermer
+            }
+            sequenceDurable = couverte;
+        }
+    }
+
+    synchronized long derniereSequence() {
+        return derniereSequence;
+    }
+
+    /**
+     * Bascule sur un nouveau fichier : les enregistrements suivants ne dépendront plus des fichiers précédents.
+     * Retourne la dernière séquence écrite avant la bascule.
+     */
+    synchronized long basculer() throws IOException {
+        ouvrirNouveauFichier();
+        return derniereSequence;
+    }
+
+    /**
+     * Supprime les fichiers antérieurs au fichier courant (couverts par un instantané).
+     */
+    synchronized void purgerAnciensFichiers() throws IOException {
+        for (Path fichier : fichiers()) {
+            if (!fichier.equals(fichierCourant)) {
+                Files.deleteIfExists(fichier);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (canal != null) {
+            canal.force(false);
+            canal.close();
+            canal = null;
+        }
+    }
+
+    private void ouvrirNouveauFichier() throws IOException {
+        close();
+        Files.createDirectories(repertoire);
+        fichierCourant = repertoire.resolve(String.format("wal-%019d.log", derniereSequence + 1));
+        // Un fichier existant de même nom ne contient aucun enregistrement valide (reste d'un arrêt brutal)
+        canal = FileChannel.open(fichierCourant,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private List<Path> fichiers() throws IOException {
+        if (!Files.isDirectory(repertoire)) {
+            return List.of();
+        }
+        try (Stream<Path> fichiers = Files.list(repertoire)) {
+            return fichiers
+                    .filter(fichier -> fichier.getFileName().toString().matches("wal-\\d{19}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Retourne null en fin de fichier ou sur un enregistrement incomplet / corrompu
+    private static byte[] lireEnregistrement(DataInputStream in, Path fichier) throws IOException {
+        try {
+            int longueur = in.readInt();
+            if (longueur <= 0) {
+                return null;
+            }
+            byte[] contenu = in.readNBytes(longueur);
+            if (contenu.length < longueur) {
+                System.err.println("WAL : enregistrement tronqué ignoré en fin de " + fichier.getFileName());
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(contenu);
+            if (in.readLong() != crc.getValue()) {
+                System.err.println("WAL : enregistrement corrompu ignoré en fin de " + fichier.getFileName());
+                return null;
+            }
+            return contenu;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
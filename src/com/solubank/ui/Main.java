@@ -1,30 +1,108 @@
 package ui;
 
+import dao.CompteDAOImpl;
+import dao.OperationDAOFactory;
+import dao.Page;
+import dao.TransactionDAOFactory;
+import dao.TransactionDAOImpl;
 import service.*;
 import entity.*;
 import util.DatabaseConnection;
 import util.FormatUtils;
+import util.LongDoubleHashMap;
+import util.Montant;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 public class Main {
 
+    // Années acceptées par les rapports (dates représentables en base comme en Java)
+    private static final int ANNEE_MIN = 1900;
+    private static final int ANNEE_MAX = 9999;
+
     private final Scanner scanner = new Scanner(System.in);
-    private final ClientService clientService = new ClientService();
-    private final CompteService compteService = new CompteService();
-    private final TransactionService transactionService = new TransactionService();
-    private final RapportService rapportService = new RapportService();
+    private final AccountEngine moteur;
+    private final ClientService clientService;
+    private final CompteService compteService;
+    private final TransactionService transactionService;
+    private final RapportService rapportService;
+
+    public Main() {
+        // Moteur de comptes en mémoire, restauré depuis son instantané et son WAL (optionnel)
+        this.moteur = demarrerMoteur();
+        this.clientService = new ClientService(moteur);
+        this.compteService = new CompteService(moteur);
+
+        // Store analytique en colonnes, chargé au démarrage et alimenté par chaque opération (optionnel)
+        ColumnarTransactionStore store = null;
+        if (DatabaseConnection.getBooleanProperty("analytics.store.enabled", false)) {
+            try {
+                store = ColumnarTransactionStore.charger(TransactionDAOFactory.getTransactionDAO());
+                System.out.printf(" Store analytique chargé : %d transactions en %.3f s%n",
+                        store.taille(), store.dureeChargementNanos() / 1_000_000_000.0);
+                EcouteursTransactions.getInstance().ajouterEcouteur(store);
+            } catch (IllegalStateException e) {
+                System.err.println(" Store analytique désactivé (chargement incomplet) : " + e.getMessage());
+            }
+        }
+        // Agrégats mensuels reconstruits depuis le journal puis tenus à jour par chaque opération (optionnel)
+        MonthlyRollups rollups = null;
+        if (DatabaseConnection.getBooleanProperty("analytics.rollups.enabled", false)) {
+            try {
+                rollups = MonthlyRollups.reconstruire(TransactionDAOFactory.getTransactionDAO());
+                System.out.printf(" Agrégats mensuels reconstruits : %d mois en %.3f s%n",
+                        rollups.nombreDeMois(), rollups.dureeReconstructionNanos() / 1_000_000_000.0);
+                EcouteursTransactions.getInstance().ajouterEcouteur(rollups);
+            } catch (IllegalStateException e) {
+                System.err.println(" Agrégats mensuels désactivés (reconstruction incomplète) : " + e.getMessage());
+            }
+        }
+        this.transactionService = new TransactionService(store);
+        this.rapportService = new RapportService(store, rollups, moteur);
+    }
+
+    private static AccountEngine demarrerMoteur() {
+        if (!DatabaseConnection.getBooleanProperty("engine.enabled", false)) {
+            return null;
+        }
+        try {
+            AccountEngine moteur = AccountEngine.demarrer(
+                    Path.of(DatabaseConnection.getProperty("engine.directory", "engine")),
+                    DatabaseConnection.getBooleanProperty("engine.wal.syncOnWrite", true),
+                    DatabaseConnection.getLongProperty("engine.checkpoint.intervalSeconds", 30),
+                    DatabaseConnection.getIntProperty("engine.lockStripes", 64),
+                    new CompteDAOImpl(),
+                    new TransactionDAOImpl());
+            System.out.printf(" Moteur de comptes restauré : %d comptes, %d opérations rejouées en %.3f ms%n",
+                    moteur.nombreDeComptes(), moteur.operationsRejouees(), moteur.dureeRestaurationNanos() / 1_000_000.0);
+            return moteur;
+        } catch (UncheckedIOException e) {
+            System.err.println(" Moteur de comptes indisponible, opérations directement en base : " + e.getMessage());
+            return null;
+        }
+    }
 
     public static void main(String[] args) {
         // Test de la connexion au démarrage
         if (DatabaseConnection.testConnection()) {
             System.out.println(" Connexion à la Banque Al Baraka établie avec succès. Bienvenue!");
+            TransactionDAOFactory.rattrapage().ifPresent(rattrapage -> System.out.printf(
+                    " Journal local : %d transactions copiées depuis la base en %.3f s%n",
+                    rattrapage.transactions(), rattrapage.dureeNanos() / 1_000_000_000.0));
             new Main().afficherMenuPrincipal();
         } else {
             System.err.println(" Échec de la connexion à la base de données. Veuillez vérifier db.properties et le pilote JDBC.");
@@ -57,6 +135,11 @@ public class Main {
             }
         } while (choix != 0);
 
+        if (moteur != null) {
+            moteur.close();
+        }
+        OperationDAOFactory.fermer();
+        TransactionDAOFactory.fermer();
         DatabaseConnection.closeConnection();
         System.out.println(" Merci d'avoir utilisé SoluBank Systems. Au revoir.");
     }
@@ -88,6 +171,17 @@ public class Main {
         }
     }
 
+    // Entier compris entre min et max (bornes incluses), redemandé tant que la saisie est hors bornes
+    private int lireEntierEntre(String prompt, int min, int max) {
+        while (true) {
+            long val = lireLong(prompt);
+            if (val >= min && val <= max) {
+                return (int) val;
+            }
+            System.err.println(" Valeur hors limites. Veuillez entrer un nombre entre " + min + " et " + max + ".");
+        }
+    }
+
     private double lireDouble(String prompt) {
         while (true) {
             try {
@@ -198,14 +292,20 @@ public class Main {
 
     private void listerClientsEtSoldes() {
         System.out.println("\n--- LISTE DES CLIENTS ET SOLDES TOTAUX ---");
-        List<Client> clients = clientService.listerTousLesClients();
+        // Clients et soldes : deux lectures indépendantes lancées en parallèle
+        CompletableFuture<List<Client>> clientsEnCours = clientService.listerTousLesClientsAsync();
+        CompletableFuture<LongDoubleHashMap> soldesEnCours = clientService.calculerSoldesTotauxParClientAsync();
+
+        List<Client> clients = clientsEnCours.join();
         if (clients.isEmpty()) {
             System.out.println("Aucun client enregistré.");
             return;
         }
 
+        // Soldes de tous les clients calculés en une passe sur les comptes
+        LongDoubleHashMap soldesParClient = soldesEnCours.join();
         clients.forEach(c -> {
-            double soldeTotal = clientService.calculerSoldeTotalParClient(c.id());
+            double soldeTotal = soldesParClient.get(c.id(), 0.0);
             // Utilisation de FormatUtils
             System.out.printf("[ID: %d] %s (%s) - Solde Total: %s\n",
                     c.id(),
@@ -217,7 +317,7 @@ public class Main {
 
     private void consulterComptesClient() {
         long clientId = lireLong("ID du Client : ");
-        List<Compte> comptes = compteService.compteDAO.findByClientId(clientId);
+        List<Compte> comptes = compteService.listerComptesDuClient(clientId);
 
         if (comptes.isEmpty()) {
             System.out.println("Aucun compte trouvé pour ce client.");
@@ -253,8 +353,9 @@ public class Main {
         String confirmation = scanner.nextLine().toLowerCase();
 
         if (confirmation.equals("oui")) {
-            clientService.supprimerClient(clientId);
-            System.out.printf(" Client (ID: %d) et toutes ses données associées ont été supprimés.\n", clientId);
+            if (clientService.supprimerClient(clientId)) {
+                System.out.printf(" Client (ID: %d) et toutes ses données associées ont été supprimés.\n", clientId);
+            }
         } else {
             System.out.println("Opération annulée.");
         }
@@ -324,7 +425,7 @@ public class Main {
 
             // Création d'un nouvel objet CompteCourant avec l'ID correct pour la mise à jour
             CompteCourant compteModifie = new CompteCourant(cc.getId(), cc.getNumero(), cc.getSolde(), cc.getIdClient(), decouvert);
-            compteService.compteDAO.update(compteModifie);
+            compteService.modifierCompte(compteModifie);
             System.out.println(" Découvert autorisé mis à jour.");
 
         } else if (compteActuel instanceof CompteEpargne ce) {
@@ -333,7 +434,7 @@ public class Main {
 
             // Création d'un nouvel objet CompteEpargne avec l'ID correct
             CompteEpargne compteModifie = new CompteEpargne(ce.getId(), ce.getNumero(), ce.getSolde(), ce.getIdClient(), taux);
-            compteService.compteDAO.update(compteModifie);
+            compteService.modifierCompte(compteModifie);
             System.out.println(" Taux d'intérêt mis à jour.");
 
         } else {
@@ -392,6 +493,7 @@ public class Main {
             System.out.println("1. Effectuer un Versement");
             System.out.println("2. Effectuer un Retrait");
             System.out.println("3. Effectuer un Virement");
+            System.out.println("4. Exécuter un Fichier d'Opérations (traitement en masse)");
             System.out.println("0. Retour au Menu Principal");
             System.out.print("Votre choix : ");
 
@@ -402,6 +504,7 @@ public class Main {
                     case 1 -> effectuerVersementUI();
                     case 2 -> effectuerRetraitUI();
                     case 3 -> effectuerVirementUI();
+                    case 4 -> executerFichierOperationsUI();
                     case 0 -> System.out.println("Retour...");
                     default -> System.err.println("Choix invalide.");
                 }
@@ -452,6 +555,33 @@ public class Main {
         }
     }
 
+    private void executerFichierOperationsUI() {
+        System.out.println("\n--- TRAITEMENT EN MASSE ---");
+        System.out.println("Format : VERSEMENT;idCompte;montant;lieu | RETRAIT;idCompte;montant;lieu | VIREMENT;idSource;idDest;montant");
+        Path fichier;
+        try {
+            fichier = Path.of(lireString("Chemin du fichier d'opérations : "));
+        } catch (InvalidPathException e) {
+            System.err.println(" Chemin invalide : " + e.getMessage());
+            return;
+        }
+
+        BulkOperationExecutor executeur = new BulkOperationExecutor(compteService,
+                DatabaseConnection.getIntProperty("bulk.concurrency", DatabaseConnection.getIntProperty("db.pool.maxSize", 10)),
+                DatabaseConnection.getBooleanProperty("bulk.virtualThreads", true));
+        try {
+            BulkOperationExecutor.Rapport rapport = executeur.executerFichier(fichier);
+            rapport.lignesRejetees().forEach(rejet -> System.err.println(" Rejetée, " + rejet));
+            rapport.resultats().stream()
+                    .filter(resultat -> resultat.statut() != StatutOperation.SUCCES)
+                    .forEach(resultat -> System.err.printf(" Ligne %d (%s) : %s%n",
+                            resultat.operation().ligne(), resultat.operation().type(), resultat.statut()));
+            System.out.println(" " + rapport);
+        } catch (IOException e) {
+            System.err.println(" Lecture du fichier impossible : " + e.getMessage());
+        }
+    }
+
     // --- Menu 3 : Consultation des Transactions ---
 
     private void menuConsultationTransactions() {
@@ -490,19 +620,30 @@ public class Main {
 
     private void listerTransactionsParCompteUI() {
         long idCompte = lireLong("ID du Compte : ");
-        List<Transaction> transactions = transactionService.listerTransactionsParCompte(idCompte);
+        Page<Transaction> page = transactionService.listerTransactionsParCompte(idCompte, null);
 
-        if (transactions.isEmpty()) {
+        if (page.elements().isEmpty()) {
             System.out.println("Aucune transaction trouvée pour ce compte.");
             return;
         }
 
         System.out.printf("\n--- HISTORIQUE DES TRANSACTIONS DU COMPTE ID %d ---\n", idCompte);
-        transactions.forEach(t -> System.out.printf("[%s] %s: %s à %s\n",
-                FormatUtils.formatDate(t.date()),
-                t.type(),
-                FormatUtils.formatMontant(t.montant()),
-                t.lieu()));
+        int numeroPage = 1;
+        while (true) {
+            System.out.printf("-- Page %d --\n", numeroPage);
+            page.elements().forEach(t -> System.out.printf("[%s] %s: %s à %s\n",
+                    FormatUtils.formatDate(t.date()),
+                    t.type(),
+                    FormatUtils.formatMontant(t.montant()),
+                    t.lieu()));
+
+            // Pagination par clé : chaque page suivante coûte une requête indexée, quel que soit l'historique
+            if (!page.aSuite() || !lireString("Afficher la page suivante ? (o/n) : ").equalsIgnoreCase("o")) {
+                break;
+            }
+            page = transactionService.listerTransactionsParCompte(idCompte, page.jetonSuivant());
+            numeroPage++;
+        }
     }
 
     private void filtrerParMontantMinUI() {
@@ -527,12 +668,12 @@ public class Main {
         Map<TypeTransaction, List<Transaction>> regroupement = transactionService.regrouperParType();
 
         regroupement.forEach((type, list) -> {
-            double total = list.stream().mapToDouble(Transaction::montant).sum();
+            long totalCentimes = list.stream().mapToLong(t -> Montant.versCentimes(t.montant())).sum();
             // Utilisation de FormatUtils
             System.out.printf("Type: %s | Nombre: %d | Total Volume: %s\n",
                     type,
                     list.size(),
-                    FormatUtils.formatMontant(total));
+                    FormatUtils.formatCentimes(totalCentimes));
         });
     }
     private void filtrerParDateUI() {
@@ -585,12 +726,20 @@ public class Main {
         System.out.println("\n--- VOLUME TOTAL DES TRANSACTIONS PAR CLIENT ---");
         long clientId = lireLong("ID du Client : ");
 
+        // Existence vérifiée d'abord : un ID inconnu ne doit pas coûter un parcours complet des transactions
         if (clientService.trouverClientParId(clientId).isEmpty()) {
             System.err.println(" Client avec l'ID " + clientId + " non trouvé.");
             return;
         }
+        CompletableFuture<Double> volumeEnCours = transactionService.calculerTotalTransactionsParClientAsync(clientId);
 
-        double volumeTotal = transactionService.calculerTotalTransactionsParClient(clientId);
+        double volumeTotal;
+        try {
+            volumeTotal = volumeEnCours.join();
+        } catch (CompletionException e) {
+            System.err.println(" Calcul du volume impossible : " + e.getCause().getMessage());
+            return;
+        }
 
         System.out.printf(" Le volume total des transactions pour le client ID %d est de : %s\n",
                 clientId,
@@ -608,6 +757,7 @@ public class Main {
             System.out.println("3. Détection des Comptes Inactifs (> " + RapportService.PERIODE_INACTIVITE_JOURS + " jours)");
             System.out.println("4. Détection des Transactions Suspectes (Montant/Lieu)");
             System.out.println("5. Détection de Fréquence Excessive");
+            System.out.println("6. Tendance Mensuelle (Volume par Mois)");
             System.out.println("0. Retour au Menu Principal");
             System.out.print("Votre choix : ");
 
@@ -630,6 +780,7 @@ public class Main {
             case 3 -> afficherComptesInactifs();
             case 4 -> afficherTransactionsSuspectes();
             case 5 -> afficherFrequenceExcessive();
+            case 6 -> afficherTendanceMensuelle();
             case 0 -> System.out.println("Retour au menu principal...");
             default -> System.err.println("Choix invalide.");
         }
@@ -656,12 +807,18 @@ public class Main {
     }
 
     private void afficherRapportMensuel() {
-        int mois = (int) lireLong("Entrez le mois (1-12) : ");
-        int annee = (int) lireLong("Entrez l'année : ");
+        int mois = lireEntierEntre("Entrez le mois (1-12) : ", 1, 12);
+        int annee = lireEntierEntre("Entrez l'année : ", ANNEE_MIN, ANNEE_MAX);
 
         System.out.printf("\n--- RAPPORT MENSUEL (%d/%d) ---\n", mois, annee);
 
-        Map<TypeTransaction, Map<String, Object>> rapport = rapportService.genererRapportMensuel(mois, annee);
+        Map<TypeTransaction, Map<String, Object>> rapport;
+        try {
+            rapport = rapportService.genererRapportMensuel(mois, annee);
+        } catch (DateTimeException e) {
+            System.err.println(" Période invalide : " + e.getMessage());
+            return;
+        }
 
         if (rapport.isEmpty()) {
             System.out.println("Aucune transaction enregistrée pour cette période.");
@@ -671,13 +828,44 @@ public class Main {
         rapport.forEach((type, stats) -> {
             double volumeTotal = (double) stats.get("volumeTotal");
             // Utilisation de FormatUtils
-            System.out.printf("Type : %s | Nombre de Transactions : %d | Volume Total : %s\n",
+            System.out.printf("Type : %s | Nombre de Transactions : %d | Volume Total : %s | Min : %s | Max : %s | Moyenne : %s\n",
                     type,
                     (long) stats.get("nombre"),
-                    FormatUtils.formatMontant(volumeTotal));
+                    FormatUtils.formatMontant(volumeTotal),
+                    FormatUtils.formatMontant((double) stats.get("montantMin")),
+                    FormatUtils.formatMontant((double) stats.get("montantMax")),
+                    FormatUtils.formatMontant((double) stats.get("montantMoyen")));
         });
     }
 
+    private void afficherTendanceMensuelle() {
+        int anneeDebut = lireEntierEntre("Entrez l'année de début : ", ANNEE_MIN, ANNEE_MAX);
+        int anneeFin = lireEntierEntre("Entrez l'année de fin : ", ANNEE_MIN, ANNEE_MAX);
+        if (anneeFin < anneeDebut) {
+            System.err.println(" L'année de fin doit être postérieure ou égale à l'année de début.");
+            return;
+        }
+
+        System.out.printf("\n--- TENDANCE MENSUELLE (%d-%d) ---\n", anneeDebut, anneeFin);
+
+        Map<YearMonth, MonthlyRollups.Activite> tendance;
+        try {
+            tendance = rapportService.genererTendanceMensuelle(YearMonth.of(anneeDebut, 1), YearMonth.of(anneeFin, 12));
+        } catch (DateTimeException e) {
+            System.err.println(" Période invalide : " + e.getMessage());
+            return;
+        }
+
+        if (tendance.isEmpty()) {
+            System.out.println("Aucune transaction enregistrée pour cette période.");
+            return;
+        }
+
+        tendance.forEach((mois, activite) ->
+                System.out.printf("%s | Nombre de Transactions : %d | Volume Total : %s\n",
+                        mois, activite.nombre(), FormatUtils.formatMontant(activite.volumeTotal())));
+    }
+
     private void afficherComptesInactifs() {
         System.out.println("\n--- COMPTES INACTIFS (> " + RapportService.PERIODE_INACTIVITE_JOURS + " jours) ---");
         List<Compte> inactifs = rapportService.identifierComptesInactifs();
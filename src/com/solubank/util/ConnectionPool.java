@@ -0,0 +1,383 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de connexions JDBC borné.
+ * Les DAO continuent de fermer leur connexion via try-with-resources : la connexion
+ * retournée est un proxy dont close() rend la connexion physique au pool au lieu de la fermer.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int tailleMax;
+    private final int minIdle;
+    private final long attenteMaxMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSecondes;
+
+    // Connexions libres : la plus récemment rendue en tête (LIFO) pour garder les connexions "chaudes"
+    private final Deque<ConnexionLibre> libres = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition disponible = lock.newCondition();
+
+    private int totalOuvertes;
+    private int actives;
+    private int enAttente;
+    private boolean ferme;
+
+    // Statistiques d'acquisition
+    private final AtomicLong nombreAcquisitions = new AtomicLong();
+    private final AtomicLong cumulAttenteNanos = new AtomicLong();
+    private final AtomicLong attenteMaxNanos = new AtomicLong();
+    private final AtomicLong nombreTimeouts = new AtomicLong();
+
+    private final ScheduledExecutorService evicteur;
+
+    // Cache de requêtes préparées propre à chaque connexion physique (désactivé si capacité = 0)
+    private final int capaciteCacheRequetes;
+    private final Map<Connection, StatementCache> cachesRequetes = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final StatementCache.Compteurs compteursCache = new StatementCache.Compteurs();
+
+    private record ConnexionLibre(Connection connexion, long depuisNanos) {
+    }
+
+    public ConnectionPool(String url, String user, String password,
+                          int tailleMax, int minIdle, long attenteMaxMillis,
+                          long idleTimeoutMillis, int validationTimeoutSecondes, int capaciteCacheRequetes) {
+        if (tailleMax <= 0) {
+            throw new IllegalArgumentException("La taille maximale du pool doit être positive.");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.tailleMax = tailleMax;
+        this.minIdle = Math.min(minIdle, tailleMax);
+        this.attenteMaxMillis = attenteMaxMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSecondes = validationTimeoutSecondes;
+        this.capaciteCacheRequetes = capaciteCacheRequetes;
+
+        this.evicteur = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-evicteur");
+            t.setDaemon(true);
+            return t;
+        });
+        long periode = Math.max(1000, idleTimeoutMillis / 2);
+        evicteur.scheduleWithFixedDelay(this::evincerConnexionsInactives, periode, periode, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion au pool (validée avant d'être rendue à l'appelant).
+     * Bloque au plus attenteMaxMillis si toutes les connexions sont occupées.
+     */
+    public Connection getConnection() throws SQLException {
+        long debut = System.nanoTime();
+        long restantNanos = TimeUnit.MILLISECONDS.toNanos(attenteMaxMillis);
+
+        while (true) {
+            Connection candidate = null;
+            boolean creer = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (ferme) {
+                        throw new SQLException("Le pool de connexions est fermé.");
+                    }
+                    if (!libres.isEmpty()) {
+                        candidate = libres.pollFirst().connexion();
+                        actives++;
+                        break;
+                    }
+                    if (totalOuvertes < tailleMax) {
+                        // On réserve la place avant d'ouvrir la connexion hors verrou
+                        totalOuvertes++;
+                        actives++;
+                        creer = true;
+                        break;
+                    }
+                    if (restantNanos <= 0) {
+                        nombreTimeouts.incrementAndGet();
+                        throw new SQLException("Délai d'attente dépassé (" + attenteMaxMillis
+                                + " ms) : aucune connexion disponible dans le pool.");
+                    }
+                    enAttente++;
+                    try {
+                        restantNanos = disponible.awaitNanos(restantNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Attente d'une connexion interrompue.", e);
+                    } finally {
+                        enAttente--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (creer) {
+                try {
+                    candidate = DriverManager.getConnection(url, user, password);
+                    if (capaciteCacheRequetes > 0) {
+                        cachesRequetes.put(candidate, new StatementCache(candidate, capaciteCacheRequetes, compteursCache));
+                    }
+                } catch (SQLException e) {
+                    liberer(null, false);
+                    throw e;
+                }
+            } else if (!estValide(candidate)) {
+                // Validation à l'emprunt : une connexion coupée par le serveur est détruite et on réessaie
+                liberer(candidate, false);
+                continue;
+            }
+
+            enregistrerAttente(System.nanoTime() - debut);
+            return envelopper(candidate);
+        }
+    }
+
+    private boolean estValide(Connection connexion) {
+        try {
+            return connexion.isValid(validationTimeoutSecondes);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void enregistrerAttente(long nanos) {
+        nombreAcquisitions.incrementAndGet();
+        cumulAttenteNanos.addAndGet(nanos);
+        attenteMaxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Rend une connexion physique au pool. Si elle n'est plus réutilisable, elle est fermée
+     * et sa place est libérée pour une nouvelle ouverture.
+     */
+    private void liberer(Connection connexion, boolean reutilisable) {
+        boolean fermerPhysique = false;
+
+        lock.lock();
+        try {
+            actives--;
+            if (reutilisable && !ferme) {
+                libres.addFirst(new ConnexionLibre(connexion, System.nanoTime()));
+            } else {
+                totalOuvertes--;
+                fermerPhysique = connexion != null;
+            }
+            disponible.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (fermerPhysique) {
+            fermerSilencieusement(connexion);
+        }
+    }
+
+    private void rendre(Connection connexion) {
+        boolean reutilisable;
+        try {
+            // Remise à l'état par défaut pour le prochain emprunteur
+            if (!connexion.getAutoCommit()) {
+                connexion.rollback();
+                connexion.setAutoCommit(true);
+            }
+            connexion.clearWarnings();
+            reutilisable = !connexion.isClosed();
+        } catch (SQLException e) {
+            reutilisable = false;
+        }
+        liberer(connexion, reutilisable);
+    }
+
+    /**
+     * Ferme les connexions restées libres plus longtemps que idleTimeoutMillis,
+     * en conservant au moins minIdle connexions.
+     */
+    private void evincerConnexionsInactives() {
+        Deque<Connection> aFermer = new ArrayDeque<>();
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+
+        lock.lock();
+        try {
+            // Les plus anciennes sont en fin de file
+            Iterator<ConnexionLibre> it = libres.descendingIterator();
+            while (it.hasNext() && libres.size() > minIdle) {
+                ConnexionLibre libre = it.next();
+                if (libre.depuisNanos() - limite > 0) {
+                    break;
+                }
+                it.remove();
+                totalOuvertes--;
+                aFermer.add(libre.connexion());
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        aFermer.forEach(this::fermerSilencieusement);
+    }
+
+    /**
+     * Ferme toutes les connexions libres et refuse les nouveaux emprunts.
+     * Les connexions encore empruntées sont fermées lorsqu'elles sont rendues.
+     */
+    public void close() {
+        Deque<ConnexionLibre> aFermer;
+        lock.lock();
+        try {
+            ferme = true;
+            aFermer = new ArrayDeque<>(libres);
+            totalOuvertes -= libres.size();
+            libres.clear();
+            disponible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evicteur.shutdownNow();
+        aFermer.forEach(libre -> fermerSilencieusement(libre.connexion()));
+    }
+
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            long acquisitions = nombreAcquisitions.get();
+            double moyenneMillis = acquisitions == 0 ? 0.0
+                    : cumulAttenteNanos.get() / (double) acquisitions / 1_000_000.0;
+            return new PoolStats(
+                    actives,
+                    libres.size(),
+                    enAttente,
+                    totalOuvertes,
+                    tailleMax,
+                    acquisitions,
+                    nombreTimeouts.get(),
+                    moyenneMillis,
+                    attenteMaxNanos.get() / 1_000_000.0
+            );
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public StatementCache.Stats getStatementCacheStats() {
+        return compteursCache.getStats();
+    }
+
+    private void fermerSilencieusement(Connection connexion) {
+        StatementCache cache = cachesRequetes.remove(connexion);
+        if (cache != null) {
+            cache.fermer();
+        }
+        try {
+            connexion.close();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la fermeture d'une connexion du pool: " + e.getMessage());
+        }
+    }
+
+    // --- Proxy de connexion : close() rend la connexion au pool ---
+
+    private Connection envelopper(Connection physique) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnexionEmpruntee(physique, cachesRequetes.get(physique)));
+    }
+
+    private final class ConnexionEmpruntee implements InvocationHandler {
+        private final Connection physique;
+        private final StatementCache cache;
+        private boolean rendue;
+
+        private ConnexionEmpruntee(Connection physique, StatementCache cache) {
+            this.physique = physique;
+            this.cache = cache;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!rendue) {
+                        rendue = true;
+                        rendre(physique);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return rendue || physique.isClosed();
+                }
+                case "prepareStatement" -> {
+                    // Seule la forme prepareStatement(String) des DAO passe par le cache
+                    if (cache != null && !rendue && args.length == 1) {
+                        return cache.preparer((String) args[0]);
+                    }
+                }
+                case "unwrap" -> {
+                    if (((Class<?>) args[0]).isInstance(physique)) {
+                        return physique;
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Connexion du pool[" + physique + "]";
+                }
+                default -> {
+                }
+            }
+            if (rendue) {
+                throw new SQLException("Connexion déjà rendue au pool.");
+            }
+            try {
+                return method.invoke(physique, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Photographie des statistiques du pool à un instant donné.
+     */
+    public record PoolStats(int actives, int libres, int enAttente, int totalOuvertes, int tailleMax,
+                            long nombreAcquisitions, long nombreTimeouts,
+                            double attenteMoyenneMillis, double attenteMaxMillis) {
+        @Override
+        public String toString() {
+            return String.format("Pool[actives=%d, libres=%d, en attente=%d, ouvertes=%d/%d, acquisitions=%d, timeouts=%d, "
+                            + "attente moyenne=%.3f ms, attente max=%.3f ms]",
+                    actives, libres, enAttente, totalOuvertes, tailleMax, nombreAcquisitions, nombreTimeouts,
+                    attenteMoyenneMillis, attenteMaxMillis);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Filtre de Bloom à compteurs pour des chaînes : "absent" est une réponse certaine,
+ * "peut-être présent" doit être confirmé par la source (faux positifs possibles).
+ * Chaque position est un compteur sur 8 bits (saturé à 255) au lieu d'un bit, ce qui permet
+ * de retirer un élément ; un compteur saturé n'est plus décrémenté (il reste "présent").
+ */
+public class CountingBloomFilter {
+
+    private static final int SATURE = 0xFF;
+
+    private final byte[] compteurs;
+    private final int nombreHachages;
+    private long nombreElements;
+
+    /**
+     * Dimensionne le filtre pour capaciteAttendue éléments et le taux de faux positifs visé.
+     */
+    public CountingBloomFilter(int capaciteAttendue, double tauxFauxPositifsVise) {
+        if (capaciteAttendue <= 0 || tauxFauxPositifsVise <= 0 || tauxFauxPositifsVise >= 1) {
+            throw new IllegalArgumentException("Capacité ou taux de faux positifs invalide.");
+        }
+        // m = -n ln(p) / (ln 2)², k = (m / n) ln 2
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-capaciteAttendue * Math.log(tauxFauxPositifsVise) / (ln2 * ln2));
+        this.compteurs = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(64, m))];
+        this.nombreHachages = Math.max(1, (int) Math.round((double) compteurs.length / capaciteAttendue * ln2));
+    }
+
+    public synchronized void ajouter(String valeur) {
+        long h = hacher(valeur);
+        for (int i = 0; i < nombreHachages; i++) {
+            int position = position(h, i);
+            int compteur = compteurs[position] & 0xFF;
+            if (compteur < SATURE) {
+                compteurs[position] = (byte) (compteur + 1);
+            }
+        }
+        nombreElements++;
+    }
+
+    /**
+     * Retire une valeur précédemment ajoutée (retirer une valeur jamais ajoutée fausse le filtre).
+     */
+    public synchronized void retirer(String valeur) {
+        if (!contientPeutEtre(valeur)) {
+            return;
+        }
+        long h = hacher(valeur);
+        for (int i = 0; i < nombreHachages; i++) {
+            int position = position(h, i);
+            int compteur = compteurs[position] & 0xFF;
+            if (compteur > 0 && compteur < SATURE) {
+                compteurs[position] = (byte) (compteur - 1);
+            }
+        }
+        nombreElements--;
+    }
+
+    public synchronized boolean contientPeutEtre(String valeur) {
+        long h = hacher(valeur);
+        for (int i = 0; i < nombreHachages; i++) {
+            if (compteurs[position(h, i)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Taux de faux positifs théorique pour le nombre d'éléments actuel : (1 - e^(-kn/m))^k.
+     */
+    public synchronized double tauxFauxPositifsEstime() {
+        double remplissage = 1 - Math.exp(-(double) nombreHachages * nombreElements / compteurs.length);
+        return Math.pow(remplissage, nombreHachages);
+    }
+
+    public synchronized long nombreElements() {
+        return nombreElements;
+    }
+
+    public int taille() {
+        return compteurs.length;
+    }
+
+    public int nombreHachages() {
+        return nombreHachages;
+    }
+
+    // Double hachage (Kirsch-Mitzenmacher) : h1 + i * h2 donne les k positions à partir d'un seul hachage 64 bits
+    private int position(long h, int i) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        return Math.floorMod(h1 + i * h2, compteurs.length);
+    }
+
+    // FNV-1a 64 bits sur les octets UTF-8, suivi d'un mélange final pour répartir les bits
+    private static long hacher(String valeur) {
+        long h = 0xcbf29ce484222325L;
+        for (byte octet : valeur.getBytes(StandardCharsets.UTF_8)) {
+            h ^= octet & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
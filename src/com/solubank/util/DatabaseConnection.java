@@ -3,6 +3,7 @@ package util;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.Properties;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -13,6 +14,8 @@ public class DatabaseConnection {
     private static String URL;
     private static String USER;
     private static String PASSWORD;
+    // Pool de connexions (null si désactivé via db.pool.enabled=false)
+    private static ConnectionPool pool;
 
     static {
         try {
@@ -28,6 +31,16 @@ public class DatabaseConnection {
             // Test de la connexion initiale pour charger le driver
             DriverManager.getConnection(URL, USER, PASSWORD).close();
 
+            if (getBooleanProperty("db.pool.enabled", true)) {
+                pool = new ConnectionPool(URL, USER, PASSWORD,
+                        getIntProperty("db.pool.maxSize", 10),
+                        getIntProperty("db.pool.minIdle", 2),
+                        getLongProperty("db.pool.maxWaitMillis", 5000),
+                        getLongProperty("db.pool.idleTimeoutMillis", 60000),
+                        getIntProperty("db.pool.validationTimeoutSeconds", 2),
+                        getIntProperty("db.statementCache.size", 50));
+            }
+
         } catch (IOException e) {
             System.err.println(" Erreur de lecture du fichier db.properties: " + e.getMessage());
         } catch (SQLException e) {
@@ -41,14 +54,60 @@ public class DatabaseConnection {
     }
 
     /**
-     * Ouvre et retourne une NOUVELLE connexion à la base de données.
-     * C'est cette connexion qui sera fermée par le bloc try-with-resources des DAO.
+     * Retourne une connexion à la base de données.
+     * Avec le pool activé, la connexion est empruntée et le close() du try-with-resources des DAO
+     * la rend au pool ; sinon une NOUVELLE connexion est ouverte via DriverManager.
      */
     public static Connection getConnection() throws SQLException {
-        // La connexion est créée UNIQUEMENT ici
+        if (pool != null) {
+            return pool.getConnection();
+        }
+        // Sans pool, la connexion est créée UNIQUEMENT ici
         return DriverManager.getConnection(URL, USER, PASSWORD);
     }
 
+    /**
+     * Statistiques du pool (connexions actives, libres, en attente, latence d'acquisition).
+     */
+    public static Optional<ConnectionPool.PoolStats> getPoolStats() {
+        return Optional.ofNullable(pool).map(ConnectionPool::getStats);
+    }
+
+    /**
+     * Statistiques du cache de requêtes préparées des connexions du pool (succès, échecs, évictions).
+     */
+    public static Optional<StatementCache.Stats> getStatementCacheStats() {
+        return Optional.ofNullable(pool).map(ConnectionPool::getStatementCacheStats);
+    }
+
+    // --- Lecture des paramètres optionnels de db.properties ---
+
+    public static String getProperty(String cle, String defaut) {
+        return props == null ? defaut : props.getProperty(cle, defaut);
+    }
+
+    public static int getIntProperty(String cle, int defaut) {
+        return (int) getLongProperty(cle, defaut);
+    }
+
+    public static long getLongProperty(String cle, long defaut) {
+        String valeur = getProperty(cle, null);
+        if (valeur == null || valeur.isBlank()) {
+            return defaut;
+        }
+        try {
+            return Long.parseLong(valeur.trim());
+        } catch (NumberFormatException e) {
+            System.err.println(" Valeur invalide pour " + cle + " dans db.properties : " + valeur);
+            return defaut;
+        }
+    }
+
+    public static boolean getBooleanProperty(String cle, boolean defaut) {
+        String valeur = getProperty(cle, null);
+        return (valeur == null || valeur.isBlank()) ? defaut : Boolean.parseBoolean(valeur.trim());
+    }
+
     /**
      * Teste l'établissement d'une connexion.
      */
@@ -61,10 +120,11 @@ public class DatabaseConnection {
         }
     }
 
-    // La méthode closeConnection() devient inutile car les DAO gèrent la fermeture
-    // via try-with-resources, mais nous laissons un stub pour éviter les erreurs de compilation.
+    // Les DAO gèrent la fermeture (ou la restitution au pool) de leur propre connexion
+    // via try-with-resources ; cette méthode ferme seulement le pool à l'arrêt de l'application.
     public static void closeConnection() {
-        // Laisser vide ou retirer si vous n'avez plus besoin d'un nettoyage global.
-        // Les DAO gèrent la fermeture de leur propre connexion.
+        if (pool != null) {
+            pool.close();
+        }
     }
 }
\ No newline at end of file
@@ -25,6 +25,11 @@ public class FormatUtils {
         return MONETARY_FORMAT.format(montant);
     }
 
+    // Montant en centimes (voir Montant) : formaté sans passer par une somme de double
+    public static String formatCentimes(long centimes) {
+        return MONETARY_FORMAT.format(java.math.BigDecimal.valueOf(centimes, 2));
+    }
+
     public static String formatDate(LocalDate date) {
         if (date == null) {
             return "N/A";
@@ -0,0 +1,39 @@
+package util;
+
+/**
+ * Fonctions communes aux tables à adressage ouvert sur clés long (sondage linéaire, capacité en puissance de 2).
+ */
+final class HachageLong {
+
+    static final int CAPACITE_MIN = 16;
+    // Au-delà de ce taux de remplissage, la table double de taille (sondes courtes)
+    static final double CHARGE_MAX = 0.6;
+
+    private HachageLong() {
+        throw new UnsupportedOperationException("Cette classe ne doit pas être instanciée.");
+    }
+
+    // Mélange des bits (finaliseur de MurmurHash3) : des ID séquentiels ne forment pas de grappes
+    static int indice(long cle, int masque) {
+        long h = cle;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & masque;
+    }
+
+    // Plus petite puissance de 2 pouvant contenir n éléments sous le taux de remplissage maximal
+    static int capacitePour(int n) {
+        long minimum = Math.max(CAPACITE_MIN, (long) Math.ceil(n / CHARGE_MAX));
+        if (minimum > 1 << 30) {
+            throw new IllegalArgumentException("Capacité trop grande : " + n);
+        }
+        return Integer.highestOneBit((int) (minimum - 1)) << 1;
+    }
+
+    static int seuil(int capacite) {
+        return (int) (capacite * CHARGE_MAX);
+    }
+}
@@ -0,0 +1,204 @@
+package util;
+
+/**
+ * Table long → double à adressage ouvert, sans objets Long/Double ni entrées par élément :
+ * trois tableaux primitifs. Utilisée pour les cumuls par ID (soldes par client...).
+ */
+public class LongDoubleHashMap {
+
+    @FunctionalInterface
+    public interface Visiteur {
+        void accepter(long cle, double valeur);
+    }
+
+    private long[] cles;
+    private double[] valeurs;
+    private boolean[] occupees;
+    private int taille;
+    private int seuil;
+
+    public LongDoubleHashMap() {
+        this(HachageLong.CAPACITE_MIN);
+    }
+
+    public LongDoubleHashMap(int tailleAttendue) {
+        allouer(HachageLong.capacitePour(tailleAttendue));
+    }
+
+    public double get(long cle, double defaut) {
+        int i = chercher(cle);
+        return occupees[i] ? valeurs[i] : defaut;
+    }
+
+    public boolean containsKey(long cle) {
+        return occupees[chercher(cle)];
+    }
+
+    public void put(long cle, double valeur) {
+        // Emplacement calculé avant l'accès au tableau : l'insertion peut le réallouer
+        int i = emplacement(cle);
+        valeurs[i] = valeur;
+    }
+
+    /**
+     * Ajoute delta à la valeur de la clé (0 si absente) et retourne la nouvelle valeur.
+     */
+    public double ajouter(long cle, double delta) {
+        int i = emplacement(cle);
+        valeurs[i] += delta;
+        return valeurs[i];
+    }
+
+    public int size() {
+        return taille;
+    }
+
+    public boolean isEmpty() {
+        return taille == 0;
+    }
+
+    public void forEach(Visiteur visiteur) {
+        for (int i = 0; i < cles.length; i++) {
+            if (occupees[i]) {
+                visiteur.accepter(cles[i], valeurs[i]);
+            }
+        }
+    }
+
+    // Clés présentes (ordre non spécifié)
+    public long[] cles() {
+        long[] resultat = new long[taille];
+        int n = 0;
+        for (int i = 0; i < cles.length; i++) {
+            if (occupees[i]) {
+                resultat[n++] = cles[i];
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Clés des k plus grandes valeurs, de la plus grande à la plus petite.
+     * Tas min borné à k emplacements (indices dans la table) : O(n log k), sans objet par entrée.
+     */
+    public long[] clesDesPlusGrandesValeurs(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k doit être positif ou nul.");
+        }
+        int[] tas = new int[Math.min(k, taille)];
+        int nb = 0;
+        for (int i = 0; i < cles.length && tas.length > 0; i++) {
+            if (!occupees[i]) {
+                continue;
+            }
+            if (nb < tas.length) {
+                tas[nb] = i;
+                remonter(tas, nb++);
+            } else if (valeurs[i] > valeurs[tas[0]]) {
+                tas[0] = i;
+                descendre(tas, nb);
+            }
+        }
+        // Vidage du tas min : on remplit le résultat de la fin vers le début
+        long[] resultat = new long[nb];
+        for (int n = nb; n > 0; n--) {
+            resultat[n - 1] = cles[tas[0]];
+            tas[0] = tas[n - 1];
+            descendre(tas, n - 1);
+        }
+        return resultat;
+    }
+
+    // --- Méthodes internes ---
+
+    // Emplacement de la clé, ou premier emplacement libre de sa séquence de sondage
+    private int chercher(long cle) {
+        int masque = cles.length - 1;
+        int i = HachageLong.indice(cle, masque);
+        while (occupees[i] && cles[i] != cle) {
+            i = (i + 1) & masque;
+        }
+        return i;
+    }
+
+    // Emplacement de la clé, créé (valeur 0) si absente
+    private int emplacement(long cle) {
+        int i = chercher(cle);
+        if (!occupees[i]) {
+            if (taille >= seuil) {
+                redimensionner(cles.length * 2);
+                i = chercher(cle);
+            }
+            occupees[i] = true;
+            cles[i] = cle;
+            valeurs[i] = 0.0;
+            taille++;
+        }
+        return i;
+    }
+
+    private void redimensionner(int capacite) {
+        long[] anciennesCles = cles;
+        double[] anciennesValeurs = valeurs;
+        boolean[] anciennesOccupees = occupees;
+        allouer(capacite);
+        for (int i = 0; i < anciennesCles.length; i++) {
+            if (anciennesOccupees[i]) {
+                int j = chercher(anciennesCles[i]);
+                occupees[j] = true;
+                cles[j] = anciennesCles[i];
+                valeurs[j] = anciennesValeurs[i];
+            }
+        }
+    }
+
+    private void allouer(int capacite) {
+        cles = new long[capacite];
+        valeurs = new double[capacite];
+        occupees = new boolean[capacite];
+        seuil = HachageLong.seuil(capacite);
+    }
+
+    private void remonter(int[] tas, int position) {
+        int element = tas[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (valeurs[tas[parent]] <= valeurs[element]) {
+                break;
+            }
+            tas[position] = tas[parent];
+            position = parent;
+        }
+        tas[position] = element;
+    }
+
+    private void descendre(int[] tas, int nb) {
+        if (nb == 0) {
+            return;
+        }
+        int position = 0;
+        int element = tas[0];
+        while (true) {
+            int enfant = 2 * position + 1;
+            if (enfant >= nb) {
+                break;
+            }
+            if (enfant + 1 < nb && valeurs[tas[enfant + 1]] < valeurs[tas[enfant]]) {
+                enfant++;
+            }
+            if (valeurs[tas[enfant]] >= valeurs[element]) {
+                break;
+            }
+            tas[position] = tas[enfant];
+            position = enfant;
+        }
+        tas[position] = element;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((cle, valeur) -> sb.append(sb.length() > 1 ? ", " : "").append(cle).append('=').append(valeur));
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,92 @@
+package util;
+
+/**
+ * Ensemble de long à adressage ouvert (contains en O(1) sans objets Long).
+ */
+public class LongHashSet {
+
+    private long[] cles;
+    private boolean[] occupees;
+    private int taille;
+    private int seuil;
+
+    public LongHashSet() {
+        this(HachageLong.CAPACITE_MIN);
+    }
+
+    public LongHashSet(int tailleAttendue) {
+        allouer(HachageLong.capacitePour(tailleAttendue));
+    }
+
+    /**
+     * Ajoute la valeur ; retourne false si elle était déjà présente.
+     */
+    public boolean add(long valeur) {
+        int i = chercher(valeur);
+        if (occupees[i]) {
+            return false;
+        }
+        if (taille >= seuil) {
+            redimensionner(cles.length * 2);
+            i = chercher(valeur);
+        }
+        occupees[i] = true;
+        cles[i] = valeur;
+        taille++;
+        return true;
+    }
+
+    public boolean contains(long valeur) {
+        return occupees[chercher(valeur)];
+    }
+
+    public int size() {
+        return taille;
+    }
+
+    public boolean isEmpty() {
+        return taille == 0;
+    }
+
+    // Valeurs présentes (ordre non spécifié)
+    public long[] toArray() {
+        long[] resultat = new long[taille];
+        int n = 0;
+        for (int i = 0; i < cles.length; i++) {
+            if (occupees[i]) {
+                resultat[n++] = cles[i];
+            }
+        }
+        return resultat;
+    }
+
+    // --- Méthodes internes ---
+
+    private int chercher(long valeur) {
+        int masque = cles.length - 1;
+        int i = HachageLong.indice(valeur, masque);
+        while (occupees[i] && cles[i] != valeur) {
+            i = (i + 1) & masque;
+        }
+        return i;
+    }
+
+    private void redimensionner(int capacite) {
+        long[] anciennesCles = cles;
+        boolean[] anciennesOccupees = occupees;
+        allouer(capacite);
+        for (int i = 0; i < anciennesCles.length; i++) {
+            if (anciennesOccupees[i]) {
+                int j = chercher(anciennesCles[i]);
+                occupees[j] = true;
+                cles[j] = anciennesCles[i];
+            }
+        }
+    }
+
+    private void allouer(int capacite) {
+        cles = new long[capacite];
+        occupees = new boolean[capacite];
+        seuil = HachageLong.seuil(capacite);
+    }
+}
@@ -0,0 +1,128 @@
+package util;
+
+/**
+ * Table long → long à adressage ouvert, sans objets Long ni entrées par élément :
+ * trois tableaux primitifs. Utilisée pour les compteurs par ID (nombre de comptes par client...).
+ */
+public class LongLongHashMap {
+
+    @FunctionalInterface
+    public interface Visiteur {
+        void accepter(long cle, long valeur);
+    }
+
+    private long[] cles;
+    private long[] valeurs;
+    private boolean[] occupees;
+    private int taille;
+    private int seuil;
+
+    public LongLongHashMap() {
+        this(HachageLong.CAPACITE_MIN);
+    }
+
+    public LongLongHashMap(int tailleAttendue) {
+        allouer(HachageLong.capacitePour(tailleAttendue));
+    }
+
+    public long get(long cle, long defaut) {
+        int i = chercher(cle);
+        return occupees[i] ? valeurs[i] : defaut;
+    }
+
+    public boolean containsKey(long cle) {
+        return occupees[chercher(cle)];
+    }
+
+    public void put(long cle, long valeur) {
+        // Emplacement calculé avant l'accès au tableau : l'insertion peut le réallouer
+        int i = emplacement(cle);
+        valeurs[i] = valeur;
+    }
+
+    /**
+     * Ajoute delta à la valeur de la clé (0 si absente) et retourne la nouvelle valeur.
+     */
+    public long ajouter(long cle, long delta) {
+        int i = emplacement(cle);
+        valeurs[i] += delta;
+        return valeurs[i];
+    }
+
+    public long incrementer(long cle) {
+        return ajouter(cle, 1);
+    }
+
+    public int size() {
+        return taille;
+    }
+
+    public boolean isEmpty() {
+        return taille == 0;
+    }
+
+    public void forEach(Visiteur visiteur) {
+        for (int i = 0; i < cles.length; i++) {
+            if (occupees[i]) {
+                visiteur.accepter(cles[i], valeurs[i]);
+            }
+        }
+    }
+
+    // --- Méthodes internes ---
+
+    // Emplacement de la clé, ou premier emplacement libre de sa séquence de sondage
+    private int chercher(long cle) {
+        int masque = cles.length - 1;
+        int i = HachageLong.indice(cle, masque);
+        while (occupees[i] && cles[i] != cle) {
+            i = (i + 1) & masque;
+        }
+        return i;
+    }
+
+    // Emplacement de la clé, créé (valeur 0) si absente
+    private int emplacement(long cle) {
+        int i = chercher(cle);
+        if (!occupees[i]) {
+            if (taille >= seuil) {
+                redimensionner(cles.length * 2);
+                i = chercher(cle);
+            }
+            occupees[i] = true;
+            cles[i] = cle;
+            valeurs[i] = 0L;
+            taille++;
+        }
+        return i;
+    }
+
+    private void redimensionner(int capacite) {
+        long[] anciennesCles = cles;
+        long[] anciennesValeurs = valeurs;
+        boolean[] anciennesOccupees = occupees;
+        allouer(capacite);
+        for (int i = 0; i < anciennesCles.length; i++) {
+            if (anciennesOccupees[i]) {
+                int j = chercher(anciennesCles[i]);
+                occupees[j] = true;
+                cles[j] = anciennesCles[i];
+                valeurs[j] = anciennesValeurs[i];
+            }
+        }
+    }
+
+    private void allouer(int capacite) {
+        cles = new long[capacite];
+        valeurs = new long[capacite];
+        occupees = new boolean[capacite];
+        seuil = HachageLong.seuil(capacite);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((cle, valeur) -> sb.append(sb.length() > 1 ? ", " : "").append(cle).append('=').append(valeur));
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,37 @@
+package util;
+
+/**
+ * Montants en virgule fixe : un montant est représenté par un long en centimes (unité mineure).
+ * Les sommes de centimes sont exactes, sans la dérive des additions successives de double,
+ * et l'arithmétique reste sur des types primitifs (aucune allocation).
+ * Les entités conservent des double ; la conversion se fait à l'entrée et à la sortie des calculs.
+ */
+public final class Montant {
+
+    public static final long CENTIMES_PAR_UNITE = 100;
+    private static final double TOLERANCE_CENTIMES = 1e-6;
+
+    private Montant() {
+        throw new UnsupportedOperationException("Cette classe ne doit pas être instanciée.");
+    }
+
+    /**
+     * Arrondit un montant en dh au centime le plus proche.
+     */
+    public static long versCentimes(double montant) {
+        return Math.round(montant * CENTIMES_PAR_UNITE);
+    }
+
+    /**
+     * Vrai si le montant tombe sur un centime entier (à l'imprécision du double près : 0.29 * 100 = 28.999…).
+     * Un montant accepté n'est ainsi jamais arrondi en silence par versCentimes.
+     */
+    public static boolean estEnCentimes(double montant) {
+        double centimes = montant * CENTIMES_PAR_UNITE;
+        return Math.abs(centimes - Math.rint(centimes)) < TOLERANCE_CENTIMES;
+    }
+
+    public static double versMontant(long centimes) {
+        return (double) centimes / CENTIMES_PAR_UNITE;
+    }
+}
@@ -0,0 +1,82 @@
+package util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Solde en centimes lisible sans verrou par plusieurs threads.
+ * Un débit est une boucle compare-and-set qui refuse de descendre sous le plancher du compte
+ * (-découvert autorisé pour un compte courant, 0 pour un compte épargne) : c'est elle qui garantit
+ * le découvert, même si l'appelant ne sérialise pas les débits. Le champ est manipulé par VarHandle
+ * plutôt que par un AtomicLong, ce qui évite un objet supplémentaire par compte.
+ */
+public final class SoldeAtomique {
+
+    /** Retourné par debiter quand le débit ferait passer le solde sous le plancher. */
+    public static final long REFUSE = Long.MIN_VALUE;
+
+    private static final VarHandle CENTIMES;
+
+    static {
+        try {
+            CENTIMES = MethodHandles.lookup().findVarHandle(SoldeAtomique.class, "centimes", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long centimes;
+    private volatile long plancher;
+
+    /**
+     * @param plancher solde minimal autorisé en centimes (négatif ou nul)
+     */
+    public SoldeAtomique(long centimes, long plancher) {
+        this.centimes = centimes;
+        definirPlancher(plancher);
+    }
+
+    /**
+     * Remplace le plancher (limites du compte modifiées). Le solde n'est pas touché, même s'il est
+     * sous le nouveau plancher : seuls les débits suivants sont refusés.
+     */
+    public void definirPlancher(long plancher) {
+        if (plancher > 0) {
+            throw new IllegalArgumentException("Le plancher d'un solde ne peut pas être positif : " + plancher);
+        }
+        this.plancher = plancher;
+    }
+
+    public long centimes() {
+        return centimes;
+    }
+
+    /**
+     * Débite le montant si le solde reste au-dessus du plancher ; retourne le nouveau solde, ou REFUSE.
+     */
+    public long debiter(long montant) {
+        long actuel;
+        long nouveau;
+        do {
+            actuel = centimes;
+            nouveau = Math.subtractExact(actuel, montant);
+            if (nouveau < plancher) {
+                return REFUSE;
+            }
+        } while (!CENTIMES.compareAndSet(this, actuel, nouveau));
+        return nouveau;
+    }
+
+    /**
+     * Ajoute le montant sans contrôle du plancher et retourne le nouveau solde : un crédit, ou un montant
+     * négatif déjà accepté (rejeu d'un journal).
+     */
+    public long crediter(long montant) {
+        return (long) CENTIMES.getAndAdd(this, montant) + montant;
+    }
+
+    @Override
+    public String toString() {
+        return FormatUtils.formatCentimes(centimes);
+    }
+}
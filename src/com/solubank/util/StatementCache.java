@@ -0,0 +1,201 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de requêtes préparées, propre à une connexion physique du pool et indexé par le texte SQL.
+ * Réutiliser le même PreparedStatement permet au pilote PostgreSQL de passer en requête préparée
+ * côté serveur (prepareThreshold) et d'éviter l'analyse/planification à chaque appel des DAO.
+ * Le close() des DAO ne ferme pas la requête : il la remet dans le cache.
+ */
+public class StatementCache {
+
+    private final Connection connexion;
+    private final int capacite;
+    private final Compteurs compteurs;
+
+    // Ordre d'accès : l'entrée la moins récemment utilisée est évincée en premier
+    private final LinkedHashMap<String, Entree> requetes;
+
+    private static final class Entree {
+        private final PreparedStatement requete;
+        private boolean empruntee;
+        private boolean evincee;
+
+        private Entree(PreparedStatement requete) {
+            this.requete = requete;
+        }
+    }
+
+    /**
+     * Compteurs partagés par tous les caches du pool.
+     */
+    public static final class Compteurs {
+        private final AtomicLong succes = new AtomicLong();
+        private final AtomicLong echecs = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        public Stats getStats() {
+            return new Stats(succes.get(), echecs.get(), evictions.get());
+        }
+    }
+
+    public record Stats(long succes, long echecs, long evictions) {
+        public double tauxSucces() {
+            long total = succes + echecs;
+            return total == 0 ? 0.0 : (double) succes / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cache de requêtes[succès=%d, échecs=%d, évictions=%d, taux=%.1f %%]",
+                    succes, echecs, evictions, tauxSucces() * 100);
+        }
+    }
+
+    public StatementCache(Connection connexion, int capacite, Compteurs compteurs) {
+        this.connexion = connexion;
+        this.capacite = capacite;
+        this.compteurs = compteurs;
+        this.requetes = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Retourne la requête préparée associée au SQL (créée au premier appel), enveloppée
+     * dans un proxy dont close() la rend au cache.
+     */
+    public synchronized PreparedStatement preparer(String sql) throws SQLException {
+        Entree entree = requetes.get(sql);
+        if (entree != null && entree.empruntee) {
+            // Même SQL déjà ouvert sur cette connexion (requêtes imbriquées) : requête non mise en cache
+            compteurs.echecs.incrementAndGet();
+            return connexion.prepareStatement(sql);
+        }
+        if (entree != null && !entree.requete.isClosed()) {
+            compteurs.succes.incrementAndGet();
+        } else {
+            compteurs.echecs.incrementAndGet();
+            entree = new Entree(connexion.prepareStatement(sql));
+            requetes.put(sql, entree);
+            evincerSiNecessaire();
+        }
+        entree.empruntee = true;
+        return envelopper(entree);
+    }
+
+    private void evincerSiNecessaire() {
+        Iterator<Map.Entry<String, Entree>> it = requetes.entrySet().iterator();
+        while (requetes.size() > capacite && it.hasNext()) {
+            Entree plusAncienne = it.next().getValue();
+            it.remove();
+            compteurs.evictions.incrementAndGet();
+            plusAncienne.evincee = true;
+            // Une requête encore empruntée sera fermée à sa restitution
+            if (!plusAncienne.empruntee) {
+                fermerSilencieusement(plusAncienne.requete);
+            }
+        }
+    }
+
+    private synchronized void restituer(Entree entree) {
+        entree.empruntee = false;
+        if (entree.evincee) {
+            fermerSilencieusement(entree.requete);
+        }
+    }
+
+    /**
+     * Ferme réellement toutes les requêtes (appelé avant la fermeture de la connexion physique).
+     */
+    public synchronized void fermer() {
+        List<Entree> aFermer = new ArrayList<>(requetes.values());
+        requetes.clear();
+        aFermer.forEach(entree -> fermerSilencieusement(entree.requete));
+    }
+
+    private static void fermerSilencieusement(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la fermeture d'une requête en cache: " + e.getMessage());
+        }
+    }
+
+    private PreparedStatement envelopper(Entree entree) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new RequeteEmpruntee(entree));
+    }
+
+    // Un proxy par emprunt : l'état "fermé" est propre à l'appelant, la requête physique reste en cache
+    private final class RequeteEmpruntee implements InvocationHandler {
+        private final Entree entree;
+        private final PreparedStatement physique;
+        private boolean rendue;
+
+        private RequeteEmpruntee(Entree entree) {
+            this.entree = entree;
+            this.physique = entree.requete;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!rendue) {
+                        rendue = true;
+                        try {
+                            reinitialiser();
+                        } finally {
+                            restituer(entree);
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return rendue || physique.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                }
+            }
+            if (rendue) {
+                throw new SQLException("Requête préparée déjà rendue au cache.");
+            }
+            try {
+                return method.invoke(physique, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Remise à zéro pour le prochain emprunteur (les DAO ne ferment pas toujours leur ResultSet)
+        private void reinitialiser() throws SQLException {
+            ResultSet resultatCourant = physique.getResultSet();
+            if (resultatCourant != null) {
+                resultatCourant.close();
+            }
+            physique.clearParameters();
+            physique.clearBatch();
+        }
+    }
+}
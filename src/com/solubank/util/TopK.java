@@ -0,0 +1,70 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+/**
+ * Sélection des K plus grands éléments selon un ordre donné, avec un tas borné à K éléments :
+ * O(n log k) en temps et O(k) en mémoire, au lieu d'un tri complet en O(n log n).
+ */
+public final class TopK {
+
+    private TopK() {
+        throw new UnsupportedOperationException("Cette classe ne doit pas être instanciée.");
+    }
+
+    /**
+     * Retourne les k plus grands éléments selon l'ordre, du plus grand au plus petit.
+     */
+    public static <T> List<T> selectionner(Iterable<? extends T> elements, int k, Comparator<? super T> ordre) {
+        PriorityQueue<T> tas = nouveauTas(k, ordre);
+        for (T element : elements) {
+            ajouter(tas, element, k, ordre);
+        }
+        return trierDecroissant(tas, ordre);
+    }
+
+    /**
+     * Collector équivalent à sorted(ordre.reversed()).limit(k).toList(), sans tri complet.
+     */
+    public static <T> Collector<T, ?, List<T>> collector(int k, Comparator<? super T> ordre) {
+        return Collector.<T, PriorityQueue<T>, List<T>>of(
+                () -> nouveauTas(k, ordre),
+                (tas, element) -> ajouter(tas, element, k, ordre),
+                (gauche, droite) -> {
+                    droite.forEach(element -> ajouter(gauche, element, k, ordre));
+                    return gauche;
+                },
+                tas -> trierDecroissant(tas, ordre)
+        );
+    }
+
+    // Tas "min" : la racine est le plus petit des k meilleurs, c'est elle qui est évincée
+    private static <T> PriorityQueue<T> nouveauTas(int k, Comparator<? super T> ordre) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k doit être positif ou nul.");
+        }
+        return new PriorityQueue<>(Math.max(1, k), ordre);
+    }
+
+    private static <T> void ajouter(PriorityQueue<T> tas, T element, int k, Comparator<? super T> ordre) {
+        if (k == 0) {
+            return;
+        }
+        if (tas.size() < k) {
+            tas.add(element);
+        } else if (ordre.compare(element, tas.peek()) > 0) {
+            tas.poll();
+            tas.add(element);
+        }
+    }
+
+    private static <T> List<T> trierDecroissant(PriorityQueue<T> tas, Comparator<? super T> ordre) {
+        List<T> resultat = new ArrayList<>(tas);
+        resultat.sort(ordre.reversed());
+        return resultat;
+    }
+}